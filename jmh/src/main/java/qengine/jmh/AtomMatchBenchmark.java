@@ -0,0 +1,75 @@
+package qengine.jmh;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RDFHexaStore#match(RDFAtom)} sur un store figé, pour chaque forme d'atome :
+ * la forme indique les positions constantes (S, P, O) et variables (?), donc l'index parcouru.
+ * Les constantes sont prises dans des triplets tirés du jeu de données ; toutes les réponses sont consommées.
+ * La forme {@code ???} (parcours complet) n'est pas mesurée : elle ne dépend que de la taille du store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AtomMatchBenchmark {
+    private static final Variable[] VARIABLES = {
+            SameObjectTermFactory.instance().createOrGetVariable("?s"),
+            SameObjectTermFactory.instance().createOrGetVariable("?p"),
+            SameObjectTermFactory.instance().createOrGetVariable("?o")};
+
+    @Param({"100000", "500000"})
+    public int triples;
+
+    @Param({"SPO", "SP?", "S?O", "?PO", "S??", "?P?", "??O"})
+    public String shape;
+
+    private RDFHexaStore store;
+    private RDFAtom[] patterns;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<RDFAtom> atoms = Datasets.atoms(triples);
+        store = new RDFHexaStore();
+        store.ingest(atoms.stream(), true);
+        store.freeze();
+
+        patterns = Datasets.sample(atoms).stream().map(this::pattern).toArray(RDFAtom[]::new);
+    }
+
+    /// Remplace par une variable les termes du triplet dont la position vaut `?` dans la forme
+    private RDFAtom pattern(RDFAtom atom) {
+        Term[] terms = atom.getTerms().clone();
+        for (int i = 0; i < terms.length; i++) {
+            if (shape.charAt(i) == '?') {
+                terms[i] = VARIABLES[i];
+            }
+        }
+        return new RDFAtom(terms);
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        RDFAtom pattern = patterns[next];
+        next = (next + 1) % patterns.length;
+        Iterator<Substitution> answers = store.match(pattern);
+        while (answers.hasNext()) {
+            blackhole.consume(answers.next());
+        }
+    }
+}
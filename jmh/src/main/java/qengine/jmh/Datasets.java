@@ -0,0 +1,78 @@
+package qengine.jmh;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.parser.RDFAtomParser;
+import qengine.program.Utils;
+import qengine.storage.RDFHexaStore;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Données communes aux benchmarks JMH.
+ *
+ * Les chemins sont relatifs au répertoire de lancement (la racine du dépôt) et se changent
+ * par propriétés système, par exemple {@code -jvmArgsAppend -Dqengine.data=data/2M.nt} :
+ * <ul>
+ *     <li>{@code qengine.data} : fichier N-Triples dont on lit les premiers triplets (défaut {@value #DEFAULT_DATA})</li>
+ *     <li>{@code qengine.queries} : dossier des querysets WatDiv, un par template (défaut {@value #DEFAULT_QUERIES})</li>
+ * </ul>
+ */
+final class Datasets {
+    static final String DEFAULT_DATA = "data/500K.nt";
+    static final String DEFAULT_QUERIES = "watdiv-mini-projet-partie-2/testsuite/queries";
+    // Nombre de triplets tirés du jeu de données pour construire les clés recherchées
+    static final int SAMPLE_SIZE = 1024;
+    private static final long SEED = 42;
+
+    private Datasets() {
+    }
+
+    /**
+     * @param triples nombre de triplets à lire
+     * @return les {@code triples} premiers triplets du jeu de données (moins si le fichier est plus court)
+     */
+    static List<RDFAtom> atoms(int triples) throws IOException {
+        String dataPath = System.getProperty("qengine.data", DEFAULT_DATA);
+        try (RDFAtomParser parser = new RDFAtomParser(new FileReader(dataPath), RDFFormat.NTRIPLES)) {
+            return parser.getRDFAtoms().limit(triples).toList();
+        }
+    }
+
+    /**
+     * @return un store figé contenant les {@code triples} premiers triplets du jeu de données
+     */
+    static RDFHexaStore store(int triples) throws IOException {
+        RDFHexaStore store = new RDFHexaStore();
+        store.ingest(atoms(triples).stream(), true);
+        store.freeze();
+        return store;
+    }
+
+    /**
+     * @param template nom du queryset, sans extension (par exemple {@code Q_1_likes})
+     * @return les requêtes du template
+     */
+    static List<StarQuery> queries(String template) {
+        String queriesPath = System.getProperty("qengine.queries", DEFAULT_QUERIES);
+        return Utils.parseStarQueries(Path.of(queriesPath, template + ".queryset").toString());
+    }
+
+    /**
+     * Tire {@value #SAMPLE_SIZE} éléments avec une graine fixe : chaque fork cherche les mêmes clés.
+     */
+    static <T> List<T> sample(List<T> elements) {
+        Random random = new Random(SEED);
+        List<T> sample = new ArrayList<>(SAMPLE_SIZE);
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sample.add(elements.get(random.nextInt(elements.size())));
+        }
+        return sample;
+    }
+}
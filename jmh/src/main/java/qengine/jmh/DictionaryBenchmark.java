@@ -0,0 +1,81 @@
+package qengine.jmh;
+
+import fr.boreal.model.logicalElements.api.Term;
+import org.openjdk.jmh.annotations.*;
+import qengine.exceptions.ValueNotFoundException;
+import qengine.model.Dictionnary;
+import qengine.model.RDFAtom;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodage et décodage par le {@link Dictionnary}, sous sa forme de chargement (tables de hachage du tas)
+ * et sous sa forme compactée hors du tas ({@link Dictionnary#compact()}), celle d'un store figé.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DictionaryBenchmark {
+    @Param({"100000", "500000"})
+    public int triples;
+
+    @Param({"false", "true"})
+    public boolean compacted;
+
+    private Dictionnary dictionnary;
+    private RDFAtom[] atoms;
+    private Term[] terms;
+    private int[] keys;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<RDFAtom> data = Datasets.atoms(triples);
+        dictionnary = new Dictionnary();
+        for (RDFAtom atom : data) {
+            for (Term term : atom.getTerms()) {
+                dictionnary.addTerm(term);
+            }
+        }
+        dictionnary.createCodex();
+        dictionnary.initializeKeyMap();
+        if (compacted) {
+            dictionnary.compact();
+        }
+
+        atoms = Datasets.sample(data).toArray(RDFAtom[]::new);
+        // Sujets, prédicats et objets en alternance
+        terms = new Term[atoms.length];
+        keys = new int[atoms.length];
+        for (int i = 0; i < atoms.length; i++) {
+            terms[i] = atoms[i].getTerms()[i % 3];
+            keys[i] = dictionnary.getKey(terms[i]);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % atoms.length;
+        return index;
+    }
+
+    @Benchmark
+    public int getKey() {
+        return dictionnary.getKey(terms[nextIndex()]);
+    }
+
+    @Benchmark
+    public Term getValue() throws ValueNotFoundException {
+        return dictionnary.getValue(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public int[] encodeTriplet() {
+        return dictionnary.encodeTriplet(atoms[nextIndex()]);
+    }
+}
@@ -0,0 +1,85 @@
+package qengine.jmh;
+
+import fr.boreal.model.logicalElements.api.Term;
+import org.openjdk.jmh.annotations.*;
+import qengine.model.CompressedIndex;
+import qengine.model.Dictionnary;
+import qengine.model.FrozenIndex;
+import qengine.model.Index;
+import qengine.model.IntIndex;
+import qengine.model.RDFAtom;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherches dans un index SPO selon le nombre d'éléments fixés, pour chaque implémentation de {@link Index} :
+ * l'index modifiable du chargement ({@link IntIndex}) et ses formes figées ({@link FrozenIndex}, {@link CompressedIndex}).
+ * Les clés recherchées sont celles de triplets tirés du jeu de données : chaque recherche trouve au moins un triplet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class IndexBenchmark {
+    @Param({"100000", "500000"})
+    public int triples;
+
+    @Param({"IntIndex", "FrozenIndex", "CompressedIndex"})
+    public String implementation;
+
+    private Index index;
+    private int[][] keys;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<RDFAtom> atoms = Datasets.atoms(triples);
+        Dictionnary dictionnary = new Dictionnary();
+        for (RDFAtom atom : atoms) {
+            for (Term term : atom.getTerms()) {
+                dictionnary.addTerm(term);
+            }
+        }
+        dictionnary.createCodex();
+        dictionnary.initializeKeyMap();
+
+        IntIndex spo = new IntIndex();
+        for (RDFAtom atom : atoms) {
+            spo.ajoutTriplet(dictionnary.encodeTriplet(atom));
+        }
+        index = switch (implementation) {
+            case "FrozenIndex" -> FrozenIndex.of(spo);
+            case "CompressedIndex" -> CompressedIndex.of(spo);
+            default -> spo;
+        };
+        keys = Datasets.sample(atoms).stream().map(dictionnary::encodeTriplet).toArray(int[][]::new);
+    }
+
+    private int[] nextKey() {
+        int[] key = keys[next];
+        next = (next + 1) % keys.length;
+        return key;
+    }
+
+    @Benchmark
+    public List<int[]> searchByOne() {
+        int[] key = nextKey();
+        return index.searchByOne(key[0]);
+    }
+
+    @Benchmark
+    public List<int[]> searchByTwo() {
+        int[] key = nextKey();
+        return index.searchByTwo(key[0], key[1]);
+    }
+
+    @Benchmark
+    public List<int[]> searchByThree() {
+        int[] key = nextKey();
+        return index.searchByThree(key[0], key[1], key[2]);
+    }
+}
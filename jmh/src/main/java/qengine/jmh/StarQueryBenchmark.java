@@ -0,0 +1,70 @@
+package qengine.jmh;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.StarQuery;
+import qengine.storage.IntResultSet;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RDFHexaStore#match(StarQuery)} sur un store figé, par template WatDiv :
+ * chaque appel évalue la requête suivante du queryset du template et consomme toutes ses réponses.
+ * {@link #matchCodes()} mesure la même évaluation sans décodage des réponses (voir {@link IntResultSet}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class StarQueryBenchmark {
+    @Param({"100000", "500000"})
+    public int triples;
+
+    @Param({"Q_1_eligibleregion", "Q_1_includes", "Q_1_likes", "Q_1_nationality", "Q_1_subscribes",
+            "Q_2_includes_eligibleRegion", "Q_2_likes_nationality", "Q_2_subscribes_likes", "Q_2_tag_homepage",
+            "Q_3_location_gender_type", "Q_3_location_nationality_gender", "Q_3_nationality_gender_type",
+            "Q_4_location_nationality_gender_type"})
+    public String template;
+
+    private RDFHexaStore store;
+    private StarQuery[] queries;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        store = Datasets.store(triples);
+        List<StarQuery> parsed = Datasets.queries(template);
+        if (parsed.isEmpty()) {
+            throw new IllegalStateException("Aucune requête pour le template " + template);
+        }
+        queries = parsed.toArray(StarQuery[]::new);
+        // Le cache des listes de candidats servirait les requêtes répétées d'une itération à l'autre
+        store.setPostingListCache(null);
+    }
+
+    private StarQuery nextQuery() {
+        StarQuery query = queries[next];
+        next = (next + 1) % queries.length;
+        return query;
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        Iterator<Substitution> answers = store.match(nextQuery());
+        while (answers.hasNext()) {
+            blackhole.consume(answers.next());
+        }
+    }
+
+    @Benchmark
+    public IntResultSet matchCodes() {
+        return store.matchCodes(nextQuery());
+    }
+}
@@ -0,0 +1,276 @@
+package qengine.benchmark;
+
+import fr.boreal.model.kb.api.FactBase;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.storage.natives.SimpleInMemoryGraphStore;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+import qengine_PLEV.storage.RDFHexaStore_PLEV;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+import static qengine.program.Utils.*;
+import static qengine_PLEV.benchmark.ConcurrentBenchmark.buildRDFStore;
+
+/**
+ * Macro-benchmark en ligne de commande : latence de chaque requête, rapportée par template WatDiv
+ * (médiane, 90e et 99e centiles, maximum), pour voir quelles formes de requête régressent.
+ *
+ * Les requêtes sont dédoublonnées (voir {@link Main#filterDuplicates(List)}) puis mélangées avec une graine fixe ;
+ * la première fraction sert à chauffer la JVM, les autres sont exécutées {@code --repetitions} fois,
+ * dans le même ordre à chaque répétition. Toutes les réponses d'une requête sont consommées dans le temps mesuré.
+ *
+ * Le template d'une requête est le nom de son queryset quand {@code --queries} désigne un dossier de querysets
+ * (par exemple {@code watdiv-mini-projet-partie-2/testsuite/queries}), sinon il est déduit de ses atomes :
+ * {@code Q_<nombre d'atomes>_<prédicats>}, par exemple {@code Q_2_likes_nationality}.
+ */
+public class BenchmarkRunner {
+    private static final String USAGE = """
+            Usage : BenchmarkRunner [options]
+              --data <fichier.nt>         données RDF (défaut : data/500K.nt)
+              --queries <chemin>          queryset, ou dossier de querysets un par template (défaut : data/STAR_ALL_workload.queryset)
+              --warmup <fraction>         part des requêtes exécutées pour chauffer la JVM, entre 0 et 1 (défaut : 0.2)
+              --repetitions <n>           nombre d'exécutions mesurées de chaque requête (défaut : 1)
+              --engine <moteur>           hexastore, hexastore-codes, integraal ou concurrent (défaut : hexastore)
+              --seed <graine>             graine du mélange des requêtes (défaut : 42)""";
+    private static final List<String> ENGINES = List.of("hexastore", "hexastore-codes", "integraal", "concurrent");
+    private static final String ALL_TEMPLATES = "TOUS";
+
+    public static void main(String[] args) throws IOException {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERREUR] " + e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+
+        // Les requêtes sont lues avant les données : un queryset vide est signalé sans attendre le chargement
+        Map<StarQuery, String> templates = loadQueries(Path.of(options.queries));
+        List<StarQuery> starQueries = Main.filterDuplicates(new ArrayList<>(templates.keySet()));
+        System.out.println("[INFO] Taille après doublons supprimés : " + starQueries.size());
+        if (starQueries.isEmpty()) {
+            System.out.println("[ERREUR] Aucune requête à mesurer dans " + options.queries);
+            return;
+        }
+        Collections.shuffle(starQueries, new Random(options.seed));
+
+        List<RDFAtom> rdfData = parseRDFData(options.data);
+        ToIntFunction<StarQuery> engine = buildEngine(options.engine, rdfData);
+        System.out.println("[INFO] Moteur " + options.engine + " prêt.");
+
+        int warmupCount = warmupCount(starQueries.size(), options.warmup);
+        List<StarQuery> measuredQueries = starQueries.subList(warmupCount, starQueries.size());
+        long answers = 0;
+        for (StarQuery starQuery : starQueries.subList(0, warmupCount)) {
+            answers += engine.applyAsInt(starQuery);
+        }
+        System.gc();
+
+        Map<String, LatencyRecorder> latencies = new TreeMap<>();
+        LatencyRecorder all = new LatencyRecorder();
+        for (int repetition = 0; repetition < options.repetitions; repetition++) {
+            for (StarQuery starQuery : measuredQueries) {
+                long start = System.nanoTime();
+                answers += engine.applyAsInt(starQuery);
+                long elapsed = System.nanoTime() - start;
+                latencies.computeIfAbsent(templates.get(starQuery), k -> new LatencyRecorder()).add(elapsed);
+                all.add(elapsed);
+            }
+        }
+
+        System.out.println("[BENCHMARK " + options.engine.toUpperCase() + "] : " + measuredQueries.size() + " requêtes x "
+                + options.repetitions + " répétitions (" + warmupCount + " requêtes de chauffe, " + answers + " réponses)");
+        System.out.println(String.format("%-40s %8s %10s %10s %10s %10s", "Template", "n", "p50 (ms)", "p90 (ms)", "p99 (ms)", "max (ms)"));
+        latencies.forEach((template, recorder) -> System.out.println(recorder.format(template)));
+        System.out.println(all.format(ALL_TEMPLATES));
+    }
+
+    /**
+     * @param engine  nom du moteur (voir {@link #ENGINES})
+     * @param rdfData les données à charger
+     * @return l'exécution d'une requête par le moteur, qui consomme toutes ses réponses et en renvoie le nombre
+     */
+    private static ToIntFunction<StarQuery> buildEngine(String engine, List<RDFAtom> rdfData) {
+        switch (engine) {
+            case "hexastore", "hexastore-codes" -> {
+                // Même construction que Main : clés par fréquence décroissante, index figés par tri par base
+                RDFHexaStore hexastore = new RDFHexaStore();
+                hexastore.add_to_dico_parallel(rdfData);
+                hexastore.dico_createCodex(true);
+                hexastore.bulkLoad(rdfData.stream(), false);
+                return engine.equals("hexastore")
+                        ? starQuery -> drain(hexastore.match(starQuery))
+                        : starQuery -> hexastore.matchCodes(starQuery).size();
+            }
+            case "integraal" -> {
+                FactBase factBase = new SimpleInMemoryGraphStore();
+                rdfData.forEach(factBase::add);
+                return starQuery -> drain(executeStarQuery(starQuery, factBase));
+            }
+            default -> {
+                RDFHexaStore_PLEV concurrentstore = buildRDFStore(rdfData);
+                return starQuery -> drain(concurrentstore.match(starQuery));
+            }
+        }
+    }
+
+    private static int drain(Iterator<Substitution> answers) {
+        int count = 0;
+        while (answers.hasNext()) {
+            answers.next();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param queries un queryset, ou un dossier de querysets
+     * @return les requêtes dans l'ordre des fichiers, associées à leur template
+     */
+    private static Map<StarQuery, String> loadQueries(Path queries) throws IOException {
+        Map<StarQuery, String> templates = new LinkedHashMap<>();
+        if (Files.isDirectory(queries)) {
+            try (Stream<Path> files = Files.list(queries)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".queryset")).sorted().toList()) {
+                    String template = file.getFileName().toString().replace(".queryset", "");
+                    parseStarQueries(file.toString()).forEach(starQuery -> templates.putIfAbsent(starQuery, template));
+                }
+            }
+        } else {
+            parseStarQueries(queries.toString()).forEach(starQuery -> templates.putIfAbsent(starQuery, templateOf(starQuery)));
+        }
+        return templates;
+    }
+
+    /**
+     * Déduit le template WatDiv d'une requête : nombre d'atomes puis nom local de chaque prédicat, dans l'ordre des atomes.
+     * Un prédicat variable est noté {@code var}.
+     *
+     * @param starQuery la requête
+     * @return le nom du template, par exemple {@code Q_2_likes_nationality}
+     */
+    public static String templateOf(StarQuery starQuery) {
+        StringJoiner template = new StringJoiner("_", "Q_" + starQuery.getRdfAtoms().size() + "_", "");
+        for (RDFAtom atom : starQuery.getRdfAtoms()) {
+            if (!atom.getTriplePredicate().isLiteral()) {
+                template.add("var");
+                continue;
+            }
+            String predicate = atom.getTriplePredicate().label();
+            // <http://schema.org/eligibleRegion> -> eligibleRegion
+            predicate = predicate.replaceAll("^<|>$", "");
+            template.add(predicate.substring(Math.max(predicate.lastIndexOf('/'), predicate.lastIndexOf('#')) + 1));
+        }
+        return template.toString();
+    }
+
+    /**
+     * Nombre de requêtes de chauffe : la fraction {@code warmup} des requêtes, arrondie au supérieur,
+     * mais toujours au moins une requête mesurée.
+     *
+     * @param queryCount le nombre de requêtes (au moins une)
+     * @param warmup     la fraction de chauffe, dans [0, 1[
+     * @return le nombre de requêtes de chauffe, au plus {@code queryCount - 1}
+     */
+    public static int warmupCount(int queryCount, double warmup) {
+        return Math.min((int) Math.ceil(queryCount * warmup), queryCount - 1);
+    }
+
+    /**
+     * Centile par la méthode du rang le plus proche : la plus petite latence dont au moins
+     * {@code percentile} % des mesures sont inférieures ou égales.
+     *
+     * @param sorted     les latences triées par ordre croissant (au moins une)
+     * @param percentile le centile, entre 0 (exclu) et 100
+     * @return la latence du centile
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0 || percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Centile " + percentile + " de " + sorted.length + " mesures.");
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[rank - 1];
+    }
+
+    /**
+     * Latences d'un template, en nanosecondes.
+     */
+    private static final class LatencyRecorder {
+        private long[] latencies = new long[64];
+        private int size = 0;
+
+        void add(long latency) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latency;
+        }
+
+        String format(String template) {
+            if (size == 0) {
+                return String.format("%-40s %8d", template, size);
+            }
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return String.format("%-40s %8d %10.3f %10.3f %10.3f %10.3f", template, size,
+                    percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6,
+                    percentile(sorted, 99) / 1e6, sorted[size - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Options de la ligne de commande, chacune de la forme {@code --nom valeur}.
+     */
+    static final class Options {
+        private String data = "data/500K.nt";
+        private String queries = "data/STAR_ALL_workload.queryset";
+        private double warmup = 0.2;
+        private int repetitions = 1;
+        private String engine = "hexastore";
+        private long seed = 42;
+
+        /**
+         * @throws IllegalArgumentException si une option est inconnue, sans valeur ou hors de ses bornes
+         */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Valeur manquante pour " + args[i]);
+                }
+                String value = args[i + 1];
+                try {
+                    switch (args[i]) {
+                        case "--data" -> options.data = value;
+                        case "--queries" -> options.queries = value;
+                        case "--warmup" -> options.warmup = Double.parseDouble(value);
+                        case "--repetitions" -> options.repetitions = Integer.parseInt(value);
+                        case "--engine" -> options.engine = value;
+                        case "--seed" -> options.seed = Long.parseLong(value);
+                        default -> throw new IllegalArgumentException("Option inconnue : " + args[i]);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Valeur invalide pour " + args[i] + " : " + value);
+                }
+            }
+            if (options.warmup < 0 || options.warmup >= 1) {
+                throw new IllegalArgumentException("La fraction de chauffe doit être dans [0, 1[ : " + options.warmup);
+            }
+            if (options.repetitions < 1) {
+                throw new IllegalArgumentException("Il faut au moins une répétition : " + options.repetitions);
+            }
+            if (!ENGINES.contains(options.engine)) {
+                throw new IllegalArgumentException("Moteur inconnu : " + options.engine + " (" + String.join(", ", ENGINES) + ")");
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package qengine.benchmark;
+
+import fr.boreal.model.logicalElements.api.Term;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static qengine.program.Utils.parseRDFData;
+
+/**
+ * Compare la construction du dictionnaire séquentielle ({@link RDFHexaStore#add_to_dico(Term[])} atome par atome)
+ * et parallèle ({@link RDFHexaStore#add_to_dico_parallel(List)}), codex compris.
+ * Le parallélisme suit celui du pool commun : {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism=n}.
+ */
+public class DictionaryBuildBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        String dataPath = args.length > 0 ? args[0] : "data/2M.nt";
+        List<RDFAtom> rdfAtoms = parseRDFData(dataPath);
+
+        RDFHexaStore sequential = new RDFHexaStore();
+        long sequentialTime = measure(rdfAtoms, store -> rdfAtoms.forEach(rdfAtom -> store.add_to_dico(rdfAtom.getTerms())), sequential);
+        RDFHexaStore parallel = new RDFHexaStore();
+        long parallelTime = measure(rdfAtoms, store -> store.add_to_dico_parallel(rdfAtoms), parallel);
+
+        // Les deux constructions doivent attribuer les mêmes clés
+        for (RDFAtom rdfAtom : rdfAtoms) {
+            if (!Arrays.equals(sequential.dico_encodeTriplet(rdfAtom), parallel.dico_encodeTriplet(rdfAtom))) {
+                throw new IllegalStateException("Clés différentes pour " + rdfAtom);
+            }
+        }
+
+        System.out.println("[DICO] Séquentiel : " + sequentialTime / 1_000_000 + " ms");
+        System.out.printf("[DICO] Parallèle (%d threads) : %d ms (accélération x%.2f)%n",
+                ForkJoinPool.getCommonPoolParallelism(), parallelTime / 1_000_000, (double) sequentialTime / parallelTime);
+    }
+
+    /**
+     * Construit {@code RUNS} fois le dictionnaire (après une construction de chauffe)
+     * et garde le meilleur temps. Le dernier dictionnaire construit est laissé dans {@code result}.
+     *
+     * @return le meilleur temps, en nanosecondes
+     */
+    private static long measure(List<RDFAtom> rdfAtoms, Consumer<RDFHexaStore> addTerms, RDFHexaStore result) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            RDFHexaStore store = run == RUNS ? result : new RDFHexaStore();
+            System.gc();
+            long start = System.nanoTime();
+            addTerms.accept(store);
+            store.dico_createCodex(true);
+            long elapsed = System.nanoTime() - start;
+            if (run > 0) {best = Math.min(best, elapsed);}
+        }
+        return best;
+    }
+}
@@ -0,0 +1,72 @@
+package qengine.benchmark;
+
+import qengine.model.IntTripleBuffer;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static qengine.program.Utils.parseRDFData;
+
+/**
+ * Compare la construction des six permutations figées :
+ * insertion séquentielle ({@link RDFHexaStore#addEncoded(IntTripleBuffer)}) puis {@link RDFHexaStore#freeze()},
+ * insertion parallèle, SPO puis une tâche par autre permutation ({@link RDFHexaStore#addEncodedInParallel(IntTripleBuffer)}),
+ * puis {@link RDFHexaStore#freeze()}, et tri par base ({@link RDFHexaStore#bulkLoadEncoded(IntTripleBuffer)}).
+ * Les triplets sont encodés une seule fois au préalable : seule la construction des index est chronométrée.
+ */
+public class IndexBuildBenchmark {
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws IOException {
+        String dataPath = args.length > 0 ? args[0] : "data/500K.nt";
+        List<RDFAtom> rdfAtoms = parseRDFData(dataPath);
+
+        RDFHexaStore encoder = new RDFHexaStore();
+        encoder.add_to_dico_parallel(rdfAtoms);
+        encoder.dico_createCodex(true);
+        IntTripleBuffer buffer = new IntTripleBuffer(rdfAtoms.size());
+        for (RDFAtom rdfAtom : rdfAtoms) {
+            int[] triplet = encoder.dico_encodeTriplet(rdfAtom);
+            buffer.add(triplet[0], triplet[1], triplet[2]);
+        }
+        System.out.println("[INFO] " + buffer.size() + " triplets encodés.");
+
+        long sequentialTime = measure(store -> {
+            store.addEncoded(buffer);
+            store.freeze();
+        });
+        long parallelTime = measure(store -> {
+            store.addEncodedInParallel(buffer);
+            store.freeze();
+        });
+        long radixTime = measure(store -> store.bulkLoadEncoded(buffer));
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        System.out.println("[INDEX] Séquentiel : " + sequentialTime / 1_000_000 + " ms");
+        System.out.printf("[INDEX] Parallèle (%d threads) : %d ms (accélération x%.2f)%n",
+                threads, parallelTime / 1_000_000, (double) sequentialTime / parallelTime);
+        System.out.printf("[INDEX] Tri par base (%d threads) : %d ms (accélération x%.2f)%n",
+                threads, radixTime / 1_000_000, (double) sequentialTime / radixTime);
+    }
+
+    /**
+     * Construit {@code RUNS} fois les index dans un store vide, après une construction de chauffe.
+     *
+     * @return le meilleur temps, en nanosecondes
+     */
+    private static long measure(Consumer<RDFHexaStore> build) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run <= RUNS; run++) {
+            RDFHexaStore store = new RDFHexaStore();
+            System.gc();
+            long start = System.nanoTime();
+            build.accept(store);
+            long elapsed = System.nanoTime() - start;
+            if (run > 0) {best = Math.min(best, elapsed);}
+        }
+        return best;
+    }
+}
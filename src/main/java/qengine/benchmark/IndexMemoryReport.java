@@ -0,0 +1,123 @@
+package qengine.benchmark;
+
+import qengine.model.CompressedIndex;
+import qengine.model.FrozenIndex;
+import qengine.model.HashMapIndex;
+import qengine.model.Index;
+import qengine.model.IntIndex;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static qengine.program.Utils.parseRDFData;
+
+/**
+ * Compare l'empreinte mémoire des différentes implémentations de {@link Index}.
+ * Les six permutations de l'hexastore sont construites pour chaque implémentation
+ * et la mémoire retenue est rapportée au nombre de triplets.
+ */
+public class IndexMemoryReport {
+    private static final String[] ORDERS = {"SPO", "SOP", "PSO", "POS", "OSP", "OPS"};
+
+    public static void main(String[] args) throws IOException {
+        String dataPath = args.length > 0 ? args[0] : "data/500K.nt";
+
+        List<RDFAtom> rdfAtoms = parseRDFData(dataPath);
+        List<int[]> encodedTriplets = encode(rdfAtoms, false);
+        List<int[]> frequencyEncodedTriplets = encode(rdfAtoms, true);
+        System.out.println("[INFO] " + encodedTriplets.size() + " triplets encodés.");
+
+        Map<String, Supplier<Index[]>> implementations = new LinkedHashMap<>();
+        implementations.put("HashMapIndex", () -> build(HashMapIndex::new, encodedTriplets));
+        implementations.put("IntIndex", () -> build(IntIndex::new, encodedTriplets));
+        implementations.put("FrozenIndex", () -> freeze(build(IntIndex::new, encodedTriplets), FrozenIndex::of));
+        implementations.put("CompressedIndex", () -> freeze(build(IntIndex::new, encodedTriplets), CompressedIndex::of));
+        implementations.put("CompressedIndex (clés par fréquence)", () -> freeze(build(IntIndex::new, frequencyEncodedTriplets), CompressedIndex::of));
+
+        for (Map.Entry<String, Supplier<Index[]>> entry : implementations.entrySet()) {
+            long bytes = measure(entry.getValue());
+            System.out.println("[MEMOIRE " + entry.getKey() + "] : ");
+            System.out.println("Mémoire des six index : " + bytes / (1024 * 1024) + " MB");
+            System.out.printf("Octets par triplet (six index) : %.1f%n", (double) bytes / encodedTriplets.size());
+            System.out.printf("Octets par triplet et par index : %.1f%n", (double) bytes / encodedTriplets.size() / ORDERS.length);
+        }
+    }
+
+    /**
+     * Encode les triplets avec le dictionnaire de l'hexastore, sans construire ses index.
+     *
+     * @param rdfAtoms         les triplets parsés
+     * @param frequencyOrdered attribuer les plus petites clés aux termes les plus fréquents
+     * @return les triplets encodés, dédoublonnés, au format SPO
+     */
+    private static List<int[]> encode(List<RDFAtom> rdfAtoms, boolean frequencyOrdered) {
+        RDFHexaStore store = new RDFHexaStore();
+        for (RDFAtom rdfAtom : rdfAtoms) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex(frequencyOrdered);
+
+        List<int[]> encodedTriplets = new ArrayList<>(rdfAtoms.size());
+        for (RDFAtom rdfAtom : new LinkedHashSet<>(rdfAtoms)) {
+            encodedTriplets.add(store.dico_encodeTriplet(rdfAtom));
+        }
+        return encodedTriplets;
+    }
+
+    /**
+     * Construit les six permutations avec la fabrique donnée.
+     */
+    private static Index[] build(Supplier<Index> indexFactory, List<int[]> encodedTriplets) {
+        Index[] indexes = new Index[ORDERS.length];
+        for (int i = 0; i < ORDERS.length; i++) {
+            indexes[i] = indexFactory.get();
+        }
+        for (int[] triplet : encodedTriplets) {
+            for (int i = 0; i < ORDERS.length; i++) {
+                indexes[i].ajoutTriplet(RDFHexaStore.permuteTriplet(triplet, ORDERS[i]));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Fige les six permutations une à une, comme {@link RDFHexaStore#freeze(UnaryOperator)}.
+     */
+    private static Index[] freeze(Index[] indexes, UnaryOperator<Index> freezer) {
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = freezer.apply(indexes[i]);
+        }
+        return indexes;
+    }
+
+    /**
+     * Mesure la mémoire retenue par les six permutations produites par le constructeur donné.
+     *
+     * @return le nombre d'octets retenus après un passage du GC
+     */
+    private static long measure(Supplier<Index[]> builder) {
+        long before = usedMemory();
+        Index[] indexes = builder.get();
+        long after = usedMemory();
+        // Garde les index vivants jusqu'à la fin de la mesure
+        Reference.reachabilityFence(indexes);
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,69 @@
+package qengine.benchmark;
+
+import qengine.model.StarQuery;
+import qengine.program.ParallelQueryExecutor;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static qengine.program.Utils.loadRDFData;
+import static qengine.program.Utils.parseStarQueries;
+
+/**
+ * Mesure le débit (requêtes par seconde) de {@link ParallelQueryExecutor}
+ * lorsque le nombre de threads passe de 1 au nombre de cœurs disponibles,
+ * puis avec des threads virtuels.
+ */
+public class ParallelThroughputBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String queryPath = args.length > 0 ? args[0] : "data/merged.queryset";
+        String dataPath = args.length > 1 ? args[1] : "data/500K.nt";
+
+        RDFHexaStore hexastore = new RDFHexaStore();
+        loadRDFData(dataPath, hexastore);
+        hexastore.freeze();
+        List<StarQuery> starQueries = parseStarQueries(queryPath);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> workerCounts = new ArrayList<>();
+        for (int workers = 1; workers < cores; workers *= 2) {
+            workerCounts.add(workers);
+        }
+        workerCounts.add(cores);
+
+        double baseline = 0;
+        for (int workers : workerCounts) {
+            double throughput = measure(() -> ParallelQueryExecutor.fixed(hexastore, workers), starQueries);
+            if (workers == 1) {baseline = throughput;}
+            report("Pool fixe, " + workers + " thread(s)", throughput, baseline);
+        }
+        report("Threads virtuels", measure(() -> ParallelQueryExecutor.virtual(hexastore), starQueries), baseline);
+    }
+
+    /**
+     * Exécute une première fois 20% des requêtes pour chauffer la JVM,
+     * puis chronomètre l'exécution de l'ensemble des requêtes.
+     *
+     * @return le débit en requêtes par seconde
+     */
+    private static double measure(Supplier<ParallelQueryExecutor> executorFactory, List<StarQuery> starQueries) {
+        try (ParallelQueryExecutor executor = executorFactory.get()) {
+            int twentyPercentCount = (int) Math.ceil(starQueries.size() * 0.2);
+            executor.executeAll(starQueries.subList(0, twentyPercentCount));
+
+            System.gc();
+            long start = System.nanoTime();
+            executor.executeAll(starQueries);
+            long elapsed = System.nanoTime() - start;
+            return starQueries.size() / (elapsed / 1e9);
+        }
+    }
+
+    private static void report(String label, double throughput, double baseline) {
+        System.out.printf("[DEBIT] %s : %.0f requêtes/s (accélération x%.2f)%n", label, throughput, throughput / baseline);
+    }
+}
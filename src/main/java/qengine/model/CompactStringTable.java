@@ -0,0 +1,267 @@
+package qengine.model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Table de chaînes immuable, hors du tas Java, qui associe chaque identifiant à son libellé et inversement.
+ *
+ * Chaque libellé est séparé en un espace de noms (jusqu'au dernier {@code /} ou {@code #} d'une IRI,
+ * ex. {@code http://db.uwaterloo.ca/~galuc/wsdbm/}) et un nom local. Les espaces de noms, peu nombreux,
+ * sont gardés une seule fois ; les entrées sont triées par (espace de noms, nom local) puis codées
+ * par préfixe commun (« front coding ») en blocs de {@code BLOCK_SIZE} : chaque entrée ne stocke
+ * que la longueur du préfixe partagé avec la précédente et le suffixe qui diffère.
+ * La première entrée d'un bloc est complète, ce qui permet la recherche dichotomique sur les blocs.
+ *
+ * Format d'une entrée (varints) : espace de noms, longueur partagée, longueur du suffixe, octets UTF-8 du suffixe.
+ * Les entrées et les tables de correspondance sont dans des tampons directs, lus uniquement par
+ * accès absolus : la table peut être interrogée depuis plusieurs threads.
+ */
+public final class CompactStringTable {
+    private static final int BLOCK_SIZE = 8;
+
+    private final String[] namespaces;
+    private final Map<String, Integer> namespaceIds;
+    // Entrées codées, position du début de chaque bloc
+    private final ByteBuffer entries;
+    private final IntBuffer blockOffsets;
+    // Rang trié -> identifiant et identifiant -> rang trié
+    private final IntBuffer sortedToId;
+    private final IntBuffer idToSorted;
+
+    private CompactStringTable(String[] namespaces, ByteBuffer entries, IntBuffer blockOffsets, IntBuffer sortedToId, IntBuffer idToSorted) {
+        this.namespaces = namespaces;
+        this.namespaceIds = new HashMap<>();
+        for (int i = 0; i < namespaces.length; i++) {
+            namespaceIds.put(namespaces[i], i);
+        }
+        this.entries = entries;
+        this.blockOffsets = blockOffsets;
+        this.sortedToId = sortedToId;
+        this.idToSorted = idToSorted;
+    }
+
+    /**
+     * Construit la table : le libellé d'indice i reçoit l'identifiant i.
+     *
+     * @param labels les libellés, sans doublon, dans l'ordre de leurs identifiants
+     * @return la table compacte
+     */
+    public static CompactStringTable of(List<String> labels) {
+        int size = labels.size();
+
+        // Séparation espace de noms / nom local
+        TreeSet<String> sortedNamespaces = new TreeSet<>();
+        for (String label : labels) {
+            sortedNamespaces.add(namespaceOf(label));
+        }
+        String[] namespaces = sortedNamespaces.toArray(new String[0]);
+        Map<String, Integer> namespaceIds = new HashMap<>();
+        for (int i = 0; i < namespaces.length; i++) {
+            namespaceIds.put(namespaces[i], i);
+        }
+        int[] namespaceOf = new int[size];
+        byte[][] locals = new byte[size][];
+        for (int id = 0; id < size; id++) {
+            String label = labels.get(id);
+            String namespace = namespaceOf(label);
+            namespaceOf[id] = namespaceIds.get(namespace);
+            locals[id] = label.substring(namespace.length()).getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Tri par (espace de noms, nom local)
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> namespaceOf[a] != namespaceOf[b]
+                ? Integer.compare(namespaceOf[a], namespaceOf[b])
+                : Arrays.compareUnsigned(locals[a], locals[b]));
+
+        // Codage par préfixe commun, bloc par bloc
+        ByteWriter writer = new ByteWriter(size * 8);
+        IntBuffer blockOffsets = directInts((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        IntBuffer sortedToId = directInts(size);
+        IntBuffer idToSorted = directInts(size);
+        for (int sorted = 0; sorted < size; sorted++) {
+            int id = order[sorted];
+            int shared = 0;
+            if (sorted % BLOCK_SIZE == 0) {
+                blockOffsets.put(sorted / BLOCK_SIZE, writer.size);
+            } else if (namespaceOf[order[sorted - 1]] == namespaceOf[id]) {
+                shared = commonPrefixLength(locals[order[sorted - 1]], locals[id]);
+            }
+            writer.writeVarint(namespaceOf[id]);
+            writer.writeVarint(shared);
+            writer.writeVarint(locals[id].length - shared);
+            writer.write(locals[id], shared, locals[id].length - shared);
+            sortedToId.put(sorted, id);
+            idToSorted.put(id, sorted);
+        }
+
+        ByteBuffer entries = ByteBuffer.allocateDirect(writer.size);
+        entries.put(0, writer.bytes, 0, writer.size);
+        return new CompactStringTable(namespaces, entries, blockOffsets, sortedToId, idToSorted);
+    }
+
+    /// Nombre de libellés de la table
+    public int size() {
+        return sortedToId.limit();
+    }
+
+    /// Libellé de l'identifiant `id`, décodé à la demande
+    public String get(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        EntryReader reader = new EntryReader(idToSorted.get(id));
+        return namespaces[reader.namespace] + new String(reader.local, 0, reader.localLength, StandardCharsets.UTF_8);
+    }
+
+    /// Identifiant d'un libellé, ou -1 s'il est absent de la table
+    public int indexOf(String label) {
+        String namespace = namespaceOf(label);
+        Integer namespaceId = namespaceIds.get(namespace);
+        if (namespaceId == null || size() == 0) {
+            return -1;
+        }
+        byte[] local = label.substring(namespace.length()).getBytes(StandardCharsets.UTF_8);
+
+        // Dernier bloc dont la première entrée est inférieure ou égale au libellé cherché
+        int low = 0;
+        int high = blockOffsets.limit() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            EntryReader head = new EntryReader(middle * BLOCK_SIZE);
+            if (head.compareTo(namespaceId, local) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        EntryReader reader = new EntryReader(low * BLOCK_SIZE);
+        int blockEnd = Math.min(size(), (low + 1) * BLOCK_SIZE);
+        while (true) {
+            int comparison = reader.compareTo(namespaceId, local);
+            if (comparison == 0) {
+                return sortedToId.get(reader.sorted);
+            }
+            if (comparison > 0 || reader.sorted + 1 == blockEnd) {
+                return -1;
+            }
+            reader.next();
+        }
+    }
+
+    /// Espace de noms d'un libellé : jusqu'au dernier `/` ou `#` pour une IRI, vide sinon
+    private static String namespaceOf(String label) {
+        if (!label.contains("://")) {
+            return "";
+        }
+        return label.substring(0, Math.max(label.lastIndexOf('/'), label.lastIndexOf('#')) + 1);
+    }
+
+    private static int commonPrefixLength(byte[] previous, byte[] current) {
+        int mismatch = Arrays.mismatch(previous, current);
+        return mismatch < 0 ? current.length : mismatch;
+    }
+
+    private static IntBuffer directInts(int length) {
+        return ByteBuffer.allocateDirect(length * Integer.BYTES).asIntBuffer();
+    }
+
+    /**
+     * Tampon d'octets extensible utilisé pendant la construction, avant la copie hors du tas.
+     */
+    private static final class ByteWriter {
+        private byte[] bytes;
+        private int size = 0;
+
+        ByteWriter(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length + (bytes.length >> 1)));
+            }
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void write(byte[] source, int from, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, from, bytes, size, length);
+            size += length;
+        }
+    }
+
+    /**
+     * Décode les entrées d'un bloc depuis sa première entrée jusqu'au rang trié demandé,
+     * en reconstruisant le nom local de chaque entrée à partir de la précédente.
+     */
+    private final class EntryReader {
+        private int position;
+        private int sorted;
+        private int namespace;
+        private byte[] local = new byte[64];
+        private int localLength;
+
+        EntryReader(int target) {
+            this.sorted = target - target % BLOCK_SIZE;
+            this.position = blockOffsets.get(sorted / BLOCK_SIZE);
+            read();
+            while (sorted < target) {
+                next();
+            }
+        }
+
+        /// Passe à l'entrée suivante du bloc
+        void next() {
+            sorted++;
+            read();
+        }
+
+        private void read() {
+            namespace = readVarint();
+            int shared = readVarint();
+            int suffixLength = readVarint();
+            if (shared + suffixLength > local.length) {
+                local = Arrays.copyOf(local, Math.max(shared + suffixLength, local.length * 2));
+            }
+            entries.get(position, local, shared, suffixLength);
+            position += suffixLength;
+            localLength = shared + suffixLength;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = entries.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        /// Compare l'entrée courante à (espace de noms, nom local), dans l'ordre de tri de la table
+        int compareTo(int otherNamespace, byte[] otherLocal) {
+            if (namespace != otherNamespace) {
+                return Integer.compare(namespace, otherNamespace);
+            }
+            return Arrays.compareUnsigned(local, 0, localLength, otherLocal, 0, otherLocal.length);
+        }
+    }
+}
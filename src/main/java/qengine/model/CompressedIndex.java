@@ -0,0 +1,401 @@
+package qengine.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Index figé dont les feuilles sont compressées par différences et entiers de longueur variable.
+ *
+ * Même découpage que {@link FrozenIndex} pour les deux premiers niveaux, mais chaque feuille
+ * (les troisièmes éléments triés d'un couple) est stockée dans un tableau d'octets :
+ * le premier élément, puis l'écart avec l'élément précédent pour les suivants, chacun en varint
+ * (7 bits par octet, bit de poids fort à 1 si la suite continue). La fin d'une feuille est le début
+ * de la suivante : sa taille n'est pas stockée.
+ * Avec un dictionnaire ordonné par fréquence, les identifiants fréquents sont petits et les écarts
+ * dans les longues feuilles (ex. sujets de {@code rdf:type}) tiennent le plus souvent sur un octet.
+ *
+ * Le nombre cumulé de triplets de chaque couple rend les comptages structurels, sans décoder les feuilles.
+ * Toutes les {@link #SKIP_INTERVAL} valeurs d'une feuille, une entrée de saut retient la dernière valeur décodée
+ * et la position de l'octet suivant : un test d'appartenance cherche par dichotomie parmi les entrées de la feuille,
+ * puis ne décode qu'un bloc.
+ */
+public class CompressedIndex implements Index {
+    // Nombre de valeurs d'une feuille entre deux entrées de saut
+    static final int SKIP_INTERVAL = 64;
+
+    // Plage de couples et nombre cumulé de triplets de chaque premier élément (indexés par premier élément)
+    private final int[] firstOffsets;
+    private final int[] firstTriplets;
+    // Second élément et position du début de la feuille dans `leaves` de chaque couple (une case de plus pour la fin)
+    private final int[] secondKeys;
+    private final int[] leafOffsets;
+    private final byte[] leaves;
+    // Nombre cumulé de triplets et première entrée de saut de chaque couple (une case de plus pour la fin)
+    private final int[] pairTriplets;
+    private final int[] leafSkips;
+    // Entrées de saut : dernière valeur décodée et position du bloc suivant dans `leaves`
+    private final int[] skipValues;
+    private final int[] skipOffsets;
+
+    private CompressedIndex(int[] firstOffsets, int[] firstTriplets, int[] secondKeys, int[] leafOffsets, byte[] leaves,
+                            int[] pairTriplets, int[] leafSkips, int[] skipValues, int[] skipOffsets) {
+        this.firstOffsets = firstOffsets;
+        this.firstTriplets = firstTriplets;
+        this.secondKeys = secondKeys;
+        this.leafOffsets = leafOffsets;
+        this.leaves = leaves;
+        this.pairTriplets = pairTriplets;
+        this.leafSkips = leafSkips;
+        this.skipValues = skipValues;
+        this.skipOffsets = skipOffsets;
+    }
+
+    /**
+     * Construit la version compressée d'un index.
+     * L'index est d'abord figé (tri et dédoublonnage) s'il ne l'est pas déjà.
+     *
+     * @param index l'index à compresser (non modifié)
+     * @return l'index compressé
+     */
+    public static CompressedIndex of(Index index) {
+        if (index instanceof CompressedIndex compressed) {
+            return compressed;
+        }
+        FrozenIndex frozen = FrozenIndex.of(index);
+
+        // Premier passage : plus grand premier élément, puis nombre de triplets par premier élément
+        int[] maxFirst = new int[1];
+        frozen.forEachTriplet((first, second, third) -> maxFirst[0] = Math.max(maxFirst[0], first));
+        int[] firstOffsets = new int[maxFirst[0] + 2];
+        int[] firstTriplets = new int[maxFirst[0] + 2];
+        frozen.forEachTriplet((first, second, third) -> firstTriplets[first + 1]++);
+        for (int i = 1; i < firstTriplets.length; i++) {
+            firstTriplets[i] += firstTriplets[i - 1];
+        }
+
+        // Second passage : les triplets arrivent triés, une feuille par couple (premier, second)
+        LeafWriter writer = new LeafWriter(frozen.size());
+        frozen.forEachTriplet((first, second, third) -> {
+            if (writer.pairCount == 0 || writer.currentFirst != first || writer.currentSecond != second) {
+                writer.startLeaf(first, second);
+                firstOffsets[first + 1] = writer.pairCount;
+            }
+            writer.addValue(third);
+        });
+        writer.endLeaf();
+
+        // Les premiers éléments absents reprennent la fin de plage du précédent
+        for (int i = 1; i < firstOffsets.length; i++) {
+            firstOffsets[i] = Math.max(firstOffsets[i], firstOffsets[i - 1]);
+        }
+
+        return new CompressedIndex(
+                firstOffsets,
+                firstTriplets,
+                Arrays.copyOf(writer.secondKeys, writer.pairCount),
+                Arrays.copyOf(writer.leafOffsets, writer.pairCount + 1),
+                Arrays.copyOf(writer.bytes, writer.byteCount),
+                Arrays.copyOf(writer.pairTriplets, writer.pairCount + 1),
+                Arrays.copyOf(writer.leafSkips, writer.pairCount + 1),
+                Arrays.copyOf(writer.skipValues, writer.skipCount),
+                Arrays.copyOf(writer.skipOffsets, writer.skipCount)
+        );
+    }
+
+    /**
+     * Écrit les feuilles varint au fil des triplets triés.
+     */
+    private static final class LeafWriter {
+        private int[] secondKeys;
+        private int[] leafOffsets;
+        private int[] pairTriplets;
+        private int[] leafSkips;
+        private int[] skipValues;
+        private int[] skipOffsets;
+        private byte[] bytes;
+        private int pairCount = 0;
+        private int byteCount = 0;
+        private int tripletCount = 0;
+        private int skipCount = 0;
+        private int currentFirst;
+        private int currentSecond;
+        private int previous;
+        private int leafSize;
+
+        LeafWriter(int tripletCount) {
+            this.secondKeys = new int[16];
+            this.leafOffsets = new int[17];
+            this.pairTriplets = new int[17];
+            this.leafSkips = new int[17];
+            this.skipValues = new int[Math.max(16, tripletCount / SKIP_INTERVAL)];
+            this.skipOffsets = new int[skipValues.length];
+            this.bytes = new byte[Math.max(16, tripletCount)];
+        }
+
+        void startLeaf(int first, int second) {
+            endLeaf();
+            previous = 0;
+            leafSize = 0;
+            if (pairCount == secondKeys.length) {
+                secondKeys = Arrays.copyOf(secondKeys, pairCount * 2);
+                leafOffsets = Arrays.copyOf(leafOffsets, pairCount * 2 + 1);
+                pairTriplets = Arrays.copyOf(pairTriplets, pairCount * 2 + 1);
+                leafSkips = Arrays.copyOf(leafSkips, pairCount * 2 + 1);
+            }
+            secondKeys[pairCount++] = second;
+            currentFirst = first;
+            currentSecond = second;
+        }
+
+        /// Encode l'élément suivant de la feuille en cours : sa valeur pour le premier, son écart ensuite
+        void addValue(int third) {
+            if (leafSize > 0 && leafSize % SKIP_INTERVAL == 0) {
+                addSkip();
+            }
+            writeVarint(third - previous);
+            previous = third;
+            leafSize++;
+            tripletCount++;
+        }
+
+        /// Entrée de saut avant l'élément suivant : la valeur qui précède et la position où reprendre le décodage
+        private void addSkip() {
+            if (skipCount == skipValues.length) {
+                skipValues = Arrays.copyOf(skipValues, skipCount * 2);
+                skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+            }
+            skipValues[skipCount] = previous;
+            skipOffsets[skipCount++] = byteCount;
+        }
+
+        /// Termine la feuille en cours : sa fin est enregistrée comme début de la feuille suivante
+        void endLeaf() {
+            leafOffsets[pairCount] = byteCount;
+            pairTriplets[pairCount] = tripletCount;
+            leafSkips[pairCount] = skipCount;
+        }
+
+        private void writeVarint(int value) {
+            if (byteCount + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length + (bytes.length >> 1) + 5);
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[byteCount++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[byteCount++] = (byte) value;
+        }
+    }
+
+    /**
+     * Curseur de lecture d'une feuille : décode les éléments un à un, sans allocation.
+     */
+    private final class LeafReader {
+        private final int end;
+        private int position;
+        private int current;
+
+        LeafReader(int pair) {
+            this(leafOffsets[pair], leafOffsets[pair + 1], 0);
+        }
+
+        /// Reprend le décodage d'une feuille à `position`, après la valeur `current`
+        LeafReader(int position, int end, int current) {
+            this.position = position;
+            this.end = end;
+            this.current = current;
+        }
+
+        boolean hasNext() {
+            return position < end;
+        }
+
+        int next() {
+            current += readVarint();
+            return current;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = leaves[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    @Override
+    public void ajoutTriplet(int[] triplet) {
+        throw new UnsupportedOperationException("L'index est figé, il ne peut plus être modifié.");
+    }
+
+    @Override
+    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
+        List<int[]> return_list = new ArrayList<>();
+        if (containsTriplet(first_element, second_element, third_element)) {
+            return_list.add(new int[]{first_element, second_element, third_element});
+        }
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
+        List<int[]> return_list = new ArrayList<>();
+        iterateByTwo(first_element, second_element).forEachRemaining(triplet -> return_list.add(triplet.clone()));
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByOne(Integer first_element) {
+        List<int[]> return_list = new ArrayList<>();
+        iterateByOne(first_element).forEachRemaining(triplet -> return_list.add(triplet.clone()));
+        return return_list;
+    }
+
+    @Override
+    public int[] getThirdElements(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        if (pair < 0) {
+            return new int[0];
+        }
+        LeafReader reader = new LeafReader(pair);
+        int[] thirdElements = new int[pairTriplets[pair + 1] - pairTriplets[pair]];
+        for (int i = 0; i < thirdElements.length; i++) {
+            thirdElements[i] = reader.next();
+        }
+        return thirdElements;
+    }
+
+    @Override
+    public boolean containsTriplet(int first_element, int second_element, int third_element) {
+        int pair = findPair(first_element, second_element);
+        if (pair < 0) {
+            return false;
+        }
+        // Dernière entrée de saut strictement inférieure à la valeur cherchée : on ne décode que le bloc qui suit
+        int skip = Arrays.binarySearch(skipValues, leafSkips[pair], leafSkips[pair + 1], third_element);
+        if (skip >= 0) {
+            return true;
+        }
+        skip = -skip - 2;
+        LeafReader reader = skip < leafSkips[pair]
+                ? new LeafReader(pair)
+                : new LeafReader(skipOffsets[skip], leafOffsets[pair + 1], skipValues[skip]);
+        // Feuille triée : on s'arrête dès qu'on dépasse la valeur cherchée
+        while (reader.hasNext()) {
+            int value = reader.next();
+            if (value >= third_element) {
+                return value == third_element;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return firstTriplets[firstTriplets.length - 1];
+    }
+
+    @Override
+    public int countByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return 0;
+        }
+        return firstTriplets[first_element + 1] - firstTriplets[first_element];
+    }
+
+    @Override
+    public int countByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? 0 : pairTriplets[pair + 1] - pairTriplets[pair];
+    }
+
+    @Override
+    public Iterator<int[]> iterateByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? new RangeIterator(0, 0, 0) : new RangeIterator(first_element, pair, pair + 1);
+    }
+
+    @Override
+    public Iterator<int[]> iterateByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return new RangeIterator(0, 0, 0);
+        }
+        return new RangeIterator(first_element, firstOffsets[first_element], firstOffsets[first_element + 1]);
+    }
+
+    @Override
+    public Iterator<int[]> iterateAll() {
+        return new RangeIterator(0, 0, secondKeys.length);
+    }
+
+    @Override
+    public void forEachTriplet(TripletConsumer consumer) {
+        for (int first = 0; first < firstOffsets.length - 1; first++) {
+            for (int pair = firstOffsets[first]; pair < firstOffsets[first + 1]; pair++) {
+                LeafReader reader = new LeafReader(pair);
+                while (reader.hasNext()) {
+                    consumer.accept(first, secondKeys[pair], reader.next());
+                }
+            }
+        }
+    }
+
+    /// Position du couple (premier, second) dans `secondKeys`, ou -1 s'il est absent.
+    private int findPair(int first_element, int second_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return -1;
+        }
+        int pair = Arrays.binarySearch(secondKeys, firstOffsets[first_element], firstOffsets[first_element + 1], second_element);
+        return pair >= 0 ? pair : -1;
+    }
+
+    /**
+     * Parcourt paresseusement une plage contiguë de couples (premier, second) en décodant leurs feuilles.
+     * Le tableau renvoyé est réutilisé d'un appel à l'autre.
+     */
+    private final class RangeIterator implements Iterator<int[]> {
+        private final int[] buffer = new int[3];
+        private final int pairEnd;
+        private int first;
+        private int pair;
+        private LeafReader reader;
+
+        RangeIterator(int first, int pairFrom, int pairTo) {
+            this.first = first;
+            this.pair = pairFrom;
+            this.pairEnd = pairTo;
+            this.reader = pairFrom < pairTo ? new LeafReader(pairFrom) : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader != null && reader.hasNext();
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (pair >= firstOffsets[first + 1]) {
+                first++;
+            }
+            buffer[0] = first;
+            buffer[1] = secondKeys[pair];
+            buffer[2] = reader.next();
+            if (!reader.hasNext()) {
+                pair++;
+                reader = pair < pairEnd ? new LeafReader(pair) : null;
+            }
+            return buffer;
+        }
+    }
+}
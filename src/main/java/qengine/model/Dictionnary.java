@@ -1,18 +1,39 @@
 package qengine.model;
 
+import fr.boreal.model.logicalElements.api.Literal;
 import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
 import qengine.exceptions.ValueNotFoundException;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Dictionnary {
+    // Taille minimale d'une tranche d'atomes comptée par une tâche de `addTermsInParallel`
+    private static final int MIN_CHUNK_SIZE = 16_384;
+
     private LinkedHashMap<Term, Integer> dictionary = new LinkedHashMap<>();
-    private List<Term> keys;
-    private final Map<Term, Integer> termToIndexMap = new HashMap<>();
+    private List<Term> keys = new ArrayList<>();
+    private volatile Map<Term, Integer> termToIndexMap = new HashMap<>();
+    // Table hors du tas qui remplace `keys` et `termToIndexMap` une fois le dictionnaire compacté
+    private volatile CompactStringTable compactTable = null;
+    // Termes ajoutés à la volée après le chargement (voir `getOrCreateKey`) : leurs clés suivent celles du codex.
+    // Un seul ajout à la fois (verrou `appendLock`), lectures concurrentes sans verrou.
+    private volatile Map<Term, Integer> appendedKeys = new ConcurrentHashMap<>();
+    private volatile Term[] appendedTerms = new Term[16];
+    private volatile int appendedCount = 0;
+    private final Object appendLock = new Object();
 
     /// Remplit un index inversté pour une récupération facilité des clés.
     public void initializeKeyMap() {
+        checkCodexMutable();
         for (int i = 0; i < keys.size(); i++) {
             termToIndexMap.put(keys.get(i), i);
         }
@@ -25,10 +46,81 @@ public class Dictionnary {
         dictionary.put(term, dictionary.getOrDefault(term, 0) + 1);
     }
 
+    /// Variante parallèle de `addTerm` pour tous les termes d'une liste d'atomes.
+    ///
+    /// Les atomes sont découpés en tranches comptées en parallèle, chacune dans ses propres fragments :
+    /// un terme va dans le fragment désigné par son hash. Les fragments de même numéro sont ensuite
+    /// fusionnés en parallèle, sans verrou puisqu'aucun terme n'appartient à deux fragments.
+    /// La première occurrence de chaque terme est conservée : les termes sont ajoutés dans le même ordre,
+    /// donc reçoivent les mêmes clés de `createCodex`, qu'avec des appels successifs à `addTerm`.
+    public void addTermsInParallel(List<RDFAtom> atoms) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int shardCount = Integer.highestOneBit(parallelism * 4 - 1) << 1; // Puissance de deux
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (atoms.size() + parallelism * 4 - 1) / (parallelism * 4));
+        int chunkCount = (atoms.size() + chunkSize - 1) / chunkSize;
+
+        List<List<Map<Term, TermCount>>> chunkShards = IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(chunk -> countTerms(atoms, chunk * chunkSize, Math.min(atoms.size(), (chunk + 1) * chunkSize), shardCount))
+                .toList();
+
+        List<Map.Entry<Term, TermCount>> counted = IntStream.range(0, shardCount)
+                .parallel()
+                .mapToObj(shard -> {
+                    Map<Term, TermCount> merged = new HashMap<>();
+                    for (List<Map<Term, TermCount>> shards : chunkShards) {
+                        shards.get(shard).forEach((term, count) -> merged.merge(term, count, TermCount::merge));
+                    }
+                    return merged;
+                })
+                .flatMap(merged -> merged.entrySet().stream())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().firstOccurrence))
+                .toList();
+
+        for (Map.Entry<Term, TermCount> entry : counted) {
+            dictionary.merge(entry.getKey(), entry.getValue().count, Integer::sum);
+        }
+    }
+
+    /// Compte les termes des atomes `[from, to)` dans `shardCount` fragments
+    private static List<Map<Term, TermCount>> countTerms(List<RDFAtom> atoms, int from, int to, int shardCount) {
+        List<Map<Term, TermCount>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new HashMap<>());
+        }
+        for (int i = from; i < to; i++) {
+            Term[] terms = atoms.get(i).getTerms();
+            for (int position = 0; position < terms.length; position++) {
+                long occurrence = (long) i * terms.length + position;
+                shards.get((terms[position].hashCode() * 0x9E3779B9 >>> 16) & (shardCount - 1))
+                        .computeIfAbsent(terms[position], term -> new TermCount(occurrence))
+                        .count++;
+            }
+        }
+        return shards;
+    }
+
+    /// Fréquence d'un terme et position de sa première occurrence dans les données
+    private static final class TermCount {
+        private int count = 0;
+        private long firstOccurrence;
+
+        TermCount(long firstOccurrence) {
+            this.firstOccurrence = firstOccurrence;
+        }
+
+        TermCount merge(TermCount other) {
+            this.count += other.count;
+            this.firstOccurrence = Math.min(this.firstOccurrence, other.firstOccurrence);
+            return this;
+        }
+    }
+
     /// Organise les terms en fonction de leur fréquence par ordre décroissant.
     ///
     /// Créé l'ordre pour accéder plus rapidement à un élément selon sa récurrence
     public void createCodex() {
+        checkCodexMutable();
         this.keys = new ArrayList<>(dictionary.keySet());
         this.dictionary = dictionary.entrySet()
                 .parallelStream() // Utilise un ParallelStream pour le tri
@@ -41,25 +133,145 @@ public class Dictionnary {
                 ));
     }
 
+    /// Attribue réellement les clés par fréquence décroissante : les termes les plus fréquents
+    /// (`rdf:type`, les classes populaires...) reçoivent les plus petites clés.
+    /// À fréquence égale, l'ordre d'insertion est conservé.
+    ///
+    /// Variante de `createCodex`, dont les clés restent dans l'ordre d'insertion.
+    /// Doit être suivi de `initializeKeyMap`.
+    public void createFrequencyOrderedCodex() {
+        checkCodexMutable();
+        this.keys = dictionary.entrySet().stream()
+                .sorted(Map.Entry.<Term, Integer>comparingByValue().reversed()) // Tri stable
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /// Réattribue les clés par fréquence décroissante, à partir du nombre d'occurrences de chaque clé actuelle.
+    /// À fréquence égale, l'ordre des clés actuelles est conservé.
+    ///
+    /// Renvoie la table de correspondance ancienne clé -> nouvelle clé, à appliquer aux triplets déjà encodés.
+    public int[] reorderByFrequency(int[] counts) {
+        checkCodexMutable();
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer key) -> key < counts.length ? counts[key] : 0).reversed());
+
+        int[] mapping = new int[order.length];
+        List<Term> reordered = new ArrayList<>(order.length);
+        for (int newKey = 0; newKey < order.length; newKey++) {
+            mapping[order[newKey]] = newKey;
+            reordered.add(keys.get(order[newKey]));
+        }
+        this.keys = reordered;
+        initializeKeyMap();
+        return mapping;
+    }
+
     /// Donne la clé dans le dictionnaire depuis un terme.
     /// Renvoie -1 si la clé n'existe pas.
     ///
     /// Accès instantané -> O(1)
+    /// Sans verrou : une compaction concurrente publie sa table avant de remplacer les tables de hachage,
+    /// un échec pendant la compaction est donc refait dans la table compacte.
     public int getKey(Term term) {
         if (!term.isLiteral()) {
             return -1;
         }
-        return termToIndexMap.getOrDefault(term, -1);
+        CompactStringTable table = compactTable;
+        Integer key;
+        if (table != null) {
+            int index = term instanceof Literal<?> literal && literal.value() instanceof String label ? table.indexOf(label) : -1;
+            key = index == -1 ? null : index;
+        } else {
+            key = termToIndexMap.get(term);
+        }
+        if (key == null) {
+            // Terme ajouté par `getOrCreateKey`, avant ou après la compaction
+            key = appendedKeys.get(term);
+        }
+        if (key == null && table == null && compactTable != null) {
+            return getKey(term);
+        }
+        return key == null ? -1 : key;
+    }
+
+    /// Donne la clé d'un terme, en lui attribuant la prochaine clé libre s'il est nouveau.
+    /// Renvoie -1 pour un terme qui n'est pas une constante.
+    ///
+    /// Utilisé par le chargement en une passe, à la place de `addTerm` puis `createCodex` :
+    /// les clés sont attribuées dans l'ordre de première apparition des termes.
+    /// Sans verrou : à n'utiliser que pendant un chargement, sans lecture concurrente.
+    /// Une fois des termes ajoutés par `getOrCreateKey` ou le dictionnaire compacté, se comporte comme `getOrCreateKey`.
+    public int getOrAddKey(Term term) {
+        if (!term.isLiteral()) {
+            return -1;
+        }
+        if (compactTable != null || appendedCount > 0) {
+            return getOrCreateKey(term);
+        }
+        Integer key = termToIndexMap.get(term);
+        if (key == null) {
+            key = keys.size();
+            keys.add(term);
+            termToIndexMap.put(term, key);
+        }
+        return key;
+    }
+
+    /// Donne la clé d'un terme, en lui attribuant la prochaine clé libre s'il est nouveau,
+    /// à la suite des clés déjà attribuées : l'ordre par fréquence du chargement initial est conservé.
+    /// Renvoie -1 pour un terme qui n'est pas une constante.
+    ///
+    /// Utilisable à tout moment, y compris après `createCodex` ou `compact`, pendant que d'autres
+    /// threads lisent le dictionnaire : un terme est publié dans `appendedTerms` avant sa clé.
+    /// La recherche est refaite sous le verrou, dans toutes les tables : un autre thread a pu ajouter le terme
+    /// et une compaction l'intégrer à la table compacte depuis la recherche sans verrou.
+    public int getOrCreateKey(Term term) {
+        int key = getKey(term);
+        if (key != -1 || !term.isLiteral()) {
+            return key;
+        }
+        synchronized (appendLock) {
+            key = getKey(term);
+            if (key != -1) {
+                return key;
+            }
+            Term[] terms = appendedTerms;
+            if (appendedCount == terms.length) {
+                terms = Arrays.copyOf(terms, terms.length * 2);
+                appendedTerms = terms;
+            }
+            terms[appendedCount] = term;
+            key = baseSize() + appendedCount;
+            appendedCount++; // Écriture volatile : publie le terme avant sa clé
+            appendedKeys.put(term, key);
+            return key;
+        }
     }
 
     /// Donne la valeur depuis une clé.
     ///
     /// Accès instantanée -> O(1)
+    /// Une fois compacté, le libellé n'est décodé qu'à l'appel, c'est-à-dire quand une substitution est produite.
     public Term getValue(int index) throws ValueNotFoundException {
 
-        if (index < 0 || index >= keys.size()) {
+        int appendedIndex = index - baseSize();
+        if (appendedIndex >= 0) {
+            // Lire le nombre de termes ajoutés avant le tableau garantit d'y trouver le terme
+            if (appendedIndex >= appendedCount) {
+                throw new ValueNotFoundException(index);
+            }
+            return appendedTerms[appendedIndex];
+        }
+        if (index < 0) {
             throw new ValueNotFoundException(index);
         }
+        if (compactTable != null) {
+            return SameObjectTermFactory.instance().createOrGetLiteral(compactTable.get(index));
+        }
 
         return keys.get(index);
     }
@@ -92,6 +304,109 @@ public class Dictionnary {
         return new RDFAtom(getValue(triplet[0]), getValue(triplet[1]), getValue(triplet[2]));
     }
 
+    /// Nombre de termes encodés
+    public int size() {
+        return baseSize() + appendedCount;
+    }
+
+    /// Nombre de termes du codex (chargement initial), hors termes ajoutés à la volée
+    private int baseSize() {
+        return compactTable != null ? compactTable.size() : keys.size();
+    }
+
+    /// Remplace les termes du dictionnaire par une `CompactStringTable` hors du tas
+    /// (espaces de noms séparés, noms locaux codés par préfixe commun).
+    /// Les termes ajoutés à la volée y sont intégrés et les clés ne changent pas ;
+    /// les fréquences de `addTerm` sont oubliées. Les termes ajoutés ensuite le sont à la suite de la table.
+    ///
+    /// Renvoie false, sans rien modifier, si un terme n'est pas un littéral à valeur textuelle.
+    ///
+    /// Tient `appendLock` : un `getOrCreateKey` concurrent attend la fin de la compaction
+    /// et son terme est alors ajouté à la suite de la table, au lieu d'être perdu.
+    /// La table est publiée avant que les tables de hachage ne soient remplacées (et non vidées) :
+    /// une lecture sans verrou concurrente trouve le terme dans les unes ou dans l'autre.
+    public boolean compact() {
+        synchronized (appendLock) {
+            if (compactTable != null) {
+                return true;
+            }
+            List<Term> terms = new ArrayList<>(keys);
+            terms.addAll(Arrays.asList(appendedTerms).subList(0, appendedCount));
+            List<String> labels = new ArrayList<>(terms.size());
+            for (Term term : terms) {
+                if (!(term instanceof Literal<?> literal) || !(literal.value() instanceof String label)) {
+                    return false;
+                }
+                labels.add(label);
+            }
+            this.compactTable = CompactStringTable.of(labels);
+            this.keys = List.of();
+            this.termToIndexMap = new HashMap<>();
+            this.dictionary = new LinkedHashMap<>();
+            this.appendedKeys = new ConcurrentHashMap<>();
+            this.appendedTerms = new Term[16];
+            this.appendedCount = 0;
+            return true;
+        }
+    }
+
+    /// Vrai si les termes sont stockés dans une `CompactStringTable`
+    public boolean isCompacted() {
+        return compactTable != null;
+    }
+
+    /// Les clés du codex ne peuvent plus être réattribuées une fois compactées ou complétées à la volée
+    private void checkCodexMutable() {
+        if (compactTable != null) {
+            throw new IllegalStateException("Le dictionnaire est compacté, ses clés ne peuvent plus être réattribuées.");
+        }
+        if (appendedCount > 0) {
+            throw new IllegalStateException("Des termes ont été ajoutés à la volée, les clés ne peuvent plus être réattribuées.");
+        }
+    }
+
+    /// Écrit les termes encodés dans l'ordre de leurs clés : nombre de termes,
+    /// puis pour chaque terme la longueur de son libellé UTF-8 suivie du libellé.
+    ///
+    /// Seuls les termes littéraux à valeur textuelle (ceux du parseur RDF) sont sérialisables.
+    public void writeTo(DataOutput out) throws IOException {
+        int size = size();
+        int baseSize = baseSize();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            String label;
+            if (i < baseSize && compactTable != null) {
+                label = compactTable.get(i);
+            } else {
+                Term term = i < baseSize ? keys.get(i) : appendedTerms[i - baseSize];
+                if (!(term instanceof Literal<?> literal) || !(literal.value() instanceof String value)) {
+                    throw new IOException("Terme non sérialisable : " + term);
+                }
+                label = value;
+            }
+            byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /// Relit un dictionnaire écrit par `writeTo` : le terme lu en i-ème position reçoit la clé i.
+    ///
+    /// Le dictionnaire relu est compacté : aucun terme n'est créé avant son premier `getValue`.
+    public static Dictionnary readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            labels.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        Dictionnary dictionnary = new Dictionnary();
+        dictionnary.compactTable = CompactStringTable.of(labels);
+        dictionnary.keys = List.of();
+        return dictionnary;
+    }
+
     public String toString(){
         String string = "";
         for (Term key : dictionary.keySet()) {
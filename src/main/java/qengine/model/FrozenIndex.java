@@ -0,0 +1,410 @@
+package qengine.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Index figé au format CSR (compressed sparse row), construit une fois le chargement terminé.
+ *
+ * Les triplets sont triés et rangés dans trois niveaux de tableaux contigus :
+ * <ul>
+ *     <li>{@code firstOffsets} : indexé directement par le premier élément (les identifiants du
+ *     dictionnaire sont denses), il donne la plage des seconds éléments de ce premier élément ;</li>
+ *     <li>{@code secondKeys} / {@code secondOffsets} : les seconds éléments triés de chaque groupe,
+ *     et la plage de leurs troisièmes éléments ;</li>
+ *     <li>{@code values} : tous les troisièmes éléments, triés à l'intérieur de chaque feuille.</li>
+ * </ul>
+ * Les recherches deviennent des recherches dichotomiques suivies de parcours contigus.
+ * L'index est en lecture seule : {@link #ajoutTriplet(int[])} lève une exception.
+ */
+public class FrozenIndex implements Index {
+    // Les tableaux sont copiés par blocs d'octets plutôt qu'entier par entier
+    private static final int IO_BLOCK_INTS = 16 * 1024;
+    // Taille des chiffres du tri par base de sortedOf
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+
+    private final int[] firstOffsets;
+    private final int[] secondKeys;
+    private final int[] secondOffsets;
+    private final int[] values;
+
+    private FrozenIndex(int[] firstOffsets, int[] secondKeys, int[] secondOffsets, int[] values) {
+        this.firstOffsets = firstOffsets;
+        this.secondKeys = secondKeys;
+        this.secondOffsets = secondOffsets;
+        this.values = values;
+    }
+
+    /**
+     * Construit la version figée d'un index.
+     * Les éventuels doublons sont éliminés au passage.
+     *
+     * @param index l'index à figer (non modifié)
+     * @return l'index figé
+     */
+    public static FrozenIndex of(Index index) {
+        if (index instanceof FrozenIndex frozen) {
+            return frozen;
+        }
+
+        // Premier passage : nombre de triplets et plus grand premier élément
+        int[] stats = new int[2];
+        index.forEachTriplet((first, second, third) -> {
+            stats[0]++;
+            stats[1] = Math.max(stats[1], first);
+        });
+        int count = stats[0];
+        int maxFirst = stats[1];
+
+        // Tri par dénombrement sur le premier élément
+        int[] firstOffsets = new int[maxFirst + 2];
+        index.forEachTriplet((first, second, third) -> firstOffsets[first + 1]++);
+        for (int i = 1; i < firstOffsets.length; i++) {
+            firstOffsets[i] += firstOffsets[i - 1];
+        }
+
+        // Les couples (second, troisième) sont packés sur un long puis triés dans chaque groupe
+        long[] pairs = new long[count];
+        int[] cursor = Arrays.copyOf(firstOffsets, firstOffsets.length - 1);
+        index.forEachTriplet((first, second, third) -> pairs[cursor[first]++] = LongIntMap.pack(second, third));
+
+        return fromGroups(firstOffsets, pairs, false);
+    }
+
+    /**
+     * Construit directement un index figé à partir de triplets encodés, sans index intermédiaire
+     * ni table de hachage : les triplets sont triés par base (LSD) une seule fois.
+     *
+     * Les couples (second, troisième) sont packés sur un long et triés chiffre par chiffre
+     * ({@code RADIX_BITS} bits, seuls les chiffres utiles aux plus grands identifiants sont traités),
+     * le premier élément suivant chaque déplacement. Un dernier tri par dénombrement, stable,
+     * sur le premier élément regroupe les couples et donne directement le premier niveau.
+     *
+     * @param buffer les triplets au format SPO
+     * @param first  position (0 sujet, 1 prédicat, 2 objet) du premier élément de la permutation
+     * @param second position du second élément
+     * @param third  position du troisième élément
+     * @return l'index figé de la permutation, sans doublon
+     */
+    public static FrozenIndex sortedOf(IntTripleBuffer buffer, int first, int second, int third) {
+        int count = buffer.size();
+        int[] firsts = new int[count];
+        long[] pairs = new long[count];
+        int maxFirst = 0;
+        int maxSecond = 0;
+        int maxThird = 0;
+        for (int i = 0; i < count; i++) {
+            firsts[i] = buffer.get(i, first);
+            pairs[i] = LongIntMap.pack(buffer.get(i, second), buffer.get(i, third));
+            maxFirst = Math.max(maxFirst, firsts[i]);
+            maxSecond = Math.max(maxSecond, buffer.get(i, second));
+            maxThird = Math.max(maxThird, buffer.get(i, third));
+        }
+
+        // Chiffres utiles : ceux du troisième élément (bits 0 à 31) puis ceux du second (bits 32 à 63)
+        List<Integer> shifts = new ArrayList<>();
+        for (int shift = 0; shift < 32 - Integer.numberOfLeadingZeros(maxThird); shift += RADIX_BITS) {
+            shifts.add(shift);
+        }
+        for (int shift = 0; shift < 32 - Integer.numberOfLeadingZeros(maxSecond); shift += RADIX_BITS) {
+            shifts.add(32 + shift);
+        }
+
+        int[] counts = new int[1 << RADIX_BITS];
+        int[] firstsBuffer = new int[count];
+        long[] pairsBuffer = new long[count];
+        for (int shift : shifts) {
+            Arrays.fill(counts, 0);
+            for (long pair : pairs) {
+                counts[(int) (pair >>> shift) & RADIX_MASK]++;
+            }
+            for (int digit = 0, position = 0; digit < counts.length; digit++) {
+                int digitCount = counts[digit];
+                counts[digit] = position;
+                position += digitCount;
+            }
+            for (int i = 0; i < count; i++) {
+                int target = counts[(int) (pairs[i] >>> shift) & RADIX_MASK]++;
+                pairsBuffer[target] = pairs[i];
+                firstsBuffer[target] = firsts[i];
+            }
+            long[] sortedPairs = pairsBuffer;
+            pairsBuffer = pairs;
+            pairs = sortedPairs;
+            int[] sortedFirsts = firstsBuffer;
+            firstsBuffer = firsts;
+            firsts = sortedFirsts;
+        }
+
+        // Dernier chiffre : le premier élément, par dénombrement sur ses identifiants denses
+        int[] firstOffsets = new int[maxFirst + 2];
+        for (int value : firsts) {
+            firstOffsets[value + 1]++;
+        }
+        for (int i = 1; i < firstOffsets.length; i++) {
+            firstOffsets[i] += firstOffsets[i - 1];
+        }
+        int[] cursor = Arrays.copyOf(firstOffsets, firstOffsets.length - 1);
+        for (int i = 0; i < count; i++) {
+            pairsBuffer[cursor[firsts[i]]++] = pairs[i];
+        }
+
+        return fromGroups(firstOffsets, pairsBuffer, true);
+    }
+
+    /**
+     * Assemble les tableaux CSR à partir des couples (second, troisième) regroupés par premier élément.
+     * Chaque groupe est trié (sauf s'il l'est déjà) puis dédoublonné ; les décalages du premier niveau sont recalculés.
+     */
+    private static FrozenIndex fromGroups(int[] firstOffsets, long[] pairs, boolean groupsSorted) {
+        int[] newFirstOffsets = new int[firstOffsets.length];
+        int[] secondKeys = new int[pairs.length];
+        int[] secondOffsets = new int[pairs.length + 1];
+        int[] values = new int[pairs.length];
+        int valueCount = 0;
+        int secondCount = 0;
+
+        for (int first = 0; first < firstOffsets.length - 1; first++) {
+            int from = firstOffsets[first];
+            int to = firstOffsets[first + 1];
+            if (!groupsSorted) {
+                Arrays.sort(pairs, from, to);
+            }
+
+            for (int i = from; i < to; i++) {
+                if (i > from && pairs[i] == pairs[i - 1]) {
+                    continue;
+                }
+                int second = (int) (pairs[i] >>> 32);
+                int third = (int) pairs[i];
+                if (secondCount == newFirstOffsets[first] || secondKeys[secondCount - 1] != second) {
+                    secondKeys[secondCount] = second;
+                    secondOffsets[secondCount] = valueCount;
+                    secondCount++;
+                }
+                values[valueCount++] = third;
+            }
+            newFirstOffsets[first + 1] = secondCount;
+        }
+        secondOffsets[secondCount] = valueCount;
+
+        return new FrozenIndex(
+                newFirstOffsets,
+                Arrays.copyOf(secondKeys, secondCount),
+                Arrays.copyOf(secondOffsets, secondCount + 1),
+                Arrays.copyOf(values, valueCount)
+        );
+    }
+
+    /**
+     * Écrit les quatre tableaux de l'index, chacun précédé de sa longueur.
+     * Le format est relu par {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeIntArray(out, firstOffsets);
+        writeIntArray(out, secondKeys);
+        writeIntArray(out, secondOffsets);
+        writeIntArray(out, values);
+    }
+
+    /**
+     * Relit un index écrit par {@link #writeTo(DataOutput)}.
+     */
+    public static FrozenIndex readFrom(DataInput in) throws IOException {
+        return new FrozenIndex(readIntArray(in), readIntArray(in), readIntArray(in), readIntArray(in));
+    }
+
+    private static void writeIntArray(DataOutput out, int[] array) throws IOException {
+        out.writeInt(array.length);
+        ByteBuffer block = ByteBuffer.allocate(IO_BLOCK_INTS * Integer.BYTES);
+        for (int from = 0; from < array.length; from += IO_BLOCK_INTS) {
+            int length = Math.min(IO_BLOCK_INTS, array.length - from);
+            block.clear();
+            block.asIntBuffer().put(array, from, length);
+            out.write(block.array(), 0, length * Integer.BYTES);
+        }
+    }
+
+    private static int[] readIntArray(DataInput in) throws IOException {
+        int[] array = new int[in.readInt()];
+        byte[] block = new byte[IO_BLOCK_INTS * Integer.BYTES];
+        for (int from = 0; from < array.length; from += IO_BLOCK_INTS) {
+            int length = Math.min(IO_BLOCK_INTS, array.length - from);
+            in.readFully(block, 0, length * Integer.BYTES);
+            ByteBuffer.wrap(block, 0, length * Integer.BYTES).asIntBuffer().get(array, from, length);
+        }
+        return array;
+    }
+
+    @Override
+    public void ajoutTriplet(int[] triplet) {
+        throw new UnsupportedOperationException("L'index est figé, il ne peut plus être modifié.");
+    }
+
+    @Override
+    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
+        List<int[]> return_list = new ArrayList<>();
+        int pair = findPair(first_element, second_element);
+        if (pair >= 0 && Arrays.binarySearch(values, secondOffsets[pair], secondOffsets[pair + 1], third_element) >= 0) {
+            return_list.add(new int[]{first_element, second_element, third_element});
+        }
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
+        int pair = findPair(first_element, second_element);
+        if (pair < 0) {
+            return new ArrayList<>();
+        }
+
+        List<int[]> return_list = new ArrayList<>(secondOffsets[pair + 1] - secondOffsets[pair]);
+        addLeaf(return_list, first_element, pair);
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByOne(Integer first_element) {
+        List<int[]> return_list = new ArrayList<>();
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return return_list;
+        }
+
+        for (int pair = firstOffsets[first_element]; pair < firstOffsets[first_element + 1]; pair++) {
+            addLeaf(return_list, first_element, pair);
+        }
+        return return_list;
+    }
+
+    @Override
+    public int[] getThirdElements(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        if (pair < 0) {
+            return new int[0];
+        }
+        // Les feuilles sont déjà triées et dédoublonnées : simple copie d'une plage contiguë
+        return Arrays.copyOfRange(values, secondOffsets[pair], secondOffsets[pair + 1]);
+    }
+
+    @Override
+    public boolean containsTriplet(int first_element, int second_element, int third_element) {
+        int pair = findPair(first_element, second_element);
+        return pair >= 0 && Arrays.binarySearch(values, secondOffsets[pair], secondOffsets[pair + 1], third_element) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public int countByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return 0;
+        }
+        return secondOffsets[firstOffsets[first_element + 1]] - secondOffsets[firstOffsets[first_element]];
+    }
+
+    @Override
+    public int countByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? 0 : secondOffsets[pair + 1] - secondOffsets[pair];
+    }
+
+    @Override
+    public Iterator<int[]> iterateByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? new RangeIterator(0, 0, 0) : new RangeIterator(first_element, pair, pair + 1);
+    }
+
+    @Override
+    public Iterator<int[]> iterateByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return new RangeIterator(0, 0, 0);
+        }
+        return new RangeIterator(first_element, firstOffsets[first_element], firstOffsets[first_element + 1]);
+    }
+
+    @Override
+    public Iterator<int[]> iterateAll() {
+        return new RangeIterator(0, 0, secondKeys.length);
+    }
+
+    @Override
+    public void forEachTriplet(TripletConsumer consumer) {
+        for (int first = 0; first < firstOffsets.length - 1; first++) {
+            for (int pair = firstOffsets[first]; pair < firstOffsets[first + 1]; pair++) {
+                for (int i = secondOffsets[pair]; i < secondOffsets[pair + 1]; i++) {
+                    consumer.accept(first, secondKeys[pair], values[i]);
+                }
+            }
+        }
+    }
+
+    /// Position du couple (premier, second) dans `secondKeys`, ou -1 s'il est absent.
+    ///
+    /// Recherche dichotomique dans le groupe du premier élément -> O(log n)
+    private int findPair(int first_element, int second_element) {
+        if (first_element < 0 || first_element >= firstOffsets.length - 1) {
+            return -1;
+        }
+        int pair = Arrays.binarySearch(secondKeys, firstOffsets[first_element], firstOffsets[first_element + 1], second_element);
+        return pair >= 0 ? pair : -1;
+    }
+
+    /**
+     * Parcourt paresseusement une plage contiguë de couples (premier, second).
+     * Le tableau renvoyé est réutilisé d'un appel à l'autre.
+     */
+    private final class RangeIterator implements Iterator<int[]> {
+        private final int[] buffer = new int[3];
+        private final int valueEnd;
+        private int first;
+        private int pair;
+        private int value;
+
+        RangeIterator(int first, int pairFrom, int pairTo) {
+            this.first = first;
+            this.pair = pairFrom;
+            this.value = secondOffsets[pairFrom];
+            this.valueEnd = secondOffsets[pairTo];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return value < valueEnd;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (value >= secondOffsets[pair + 1]) {
+                pair++;
+            }
+            while (pair >= firstOffsets[first + 1]) {
+                first++;
+            }
+            buffer[0] = first;
+            buffer[1] = secondKeys[pair];
+            buffer[2] = values[value++];
+            return buffer;
+        }
+    }
+
+    private void addLeaf(List<int[]> return_list, int first_element, int pair) {
+        int second_element = secondKeys[pair];
+        for (int i = secondOffsets[pair]; i < secondOffsets[pair + 1]; i++) {
+            return_list.add(new int[]{first_element, second_element, values[i]});
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package qengine.model;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implémentation historique de {@link Index} : des maps imbriquées d'entiers boxés
+ * (premier élément -> second élément -> liste des troisièmes éléments).
+ */
+public class HashMapIndex implements Index {
+    private final Map<Integer, Map<Integer, List<Integer>>> index;
+
+    public HashMapIndex() {
+        // Utilisation de ConcurrentHashMap pour éviter les problèmes de concurrence (si nécessaire)
+        this.index = new ConcurrentHashMap<>();
+    }
+
+    // Méthode pour ajouter un triplet
+    @Override
+    public void ajoutTriplet(int[] triplet) {
+        // Obtenir ou créer le sous-index pour le sujet (triplet[0])
+        index.computeIfAbsent(triplet[0], k -> new ConcurrentHashMap<>())
+                // Obtenir ou créer la liste pour le prédicat (triplet[1])
+                .computeIfAbsent(triplet[1], k -> new ArrayList<>())
+                // Ajouter l'objet (triplet[2]) si non déjà présent
+                .add(triplet[2]);
+    }
+
+    // Méthode pour rechercher des triplets pour les trois éléments données
+    @Override
+    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
+        Map<Integer, List<Integer>> first_elem_match =  this.index.getOrDefault(first_element, Collections.emptyMap());
+        List<Integer> second_elem_match =  first_elem_match.getOrDefault(second_element, Collections.emptyList());
+
+        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
+        for (Integer elem : second_elem_match){
+            if(Objects.equals(third_element, elem)) {
+                return_list.add(new int[]{first_element, second_element, third_element});
+            }
+        }
+        return return_list;
+    }
+
+    // Méthode pour rechercher des variables (?x) pour deux éléments donnés
+    @Override
+    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
+        List<Integer> third_elem_match =  this.index.getOrDefault(first_element, Collections.emptyMap())
+                .getOrDefault(second_element, Collections.emptyList());
+
+        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
+        for (Integer third_element : third_elem_match){
+            return_list.add(new int[]{first_element, second_element, third_element});
+        }
+        return return_list;
+    }
+
+    // Méthode pour rechercher des variables (?x, ?y) pour un élément donné
+    @Override
+    public List<int[]> searchByOne(Integer first_element) {
+        Map<Integer, List<Integer>> map_match =  this.index.getOrDefault(first_element, Collections.emptyMap());
+
+        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
+
+        for (Integer second_element :  map_match.keySet()){
+            for (Integer third_element : map_match.get(second_element)){
+                return_list.add(new int[]{first_element, second_element, third_element});
+            }
+        }
+
+        return return_list;
+    }
+
+    @Override
+    public int[] getThirdElements(int first_element, int second_element) {
+        return this.index.getOrDefault(first_element, Collections.emptyMap())
+                .getOrDefault(second_element, Collections.emptyList())
+                .stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    @Override
+    public boolean containsTriplet(int first_element, int second_element, int third_element) {
+        return this.index.getOrDefault(first_element, Collections.emptyMap())
+                .getOrDefault(second_element, Collections.emptyList())
+                .contains(third_element);
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for (Map<Integer, List<Integer>> map_match : this.index.values()) {
+            for (List<Integer> third_elements : map_match.values()) {
+                count += third_elements.size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countByOne(int first_element) {
+        int count = 0;
+        for (List<Integer> third_elements : this.index.getOrDefault(first_element, Collections.emptyMap()).values()) {
+            count += third_elements.size();
+        }
+        return count;
+    }
+
+    @Override
+    public int countByTwo(int first_element, int second_element) {
+        return this.index.getOrDefault(first_element, Collections.emptyMap())
+                .getOrDefault(second_element, Collections.emptyList())
+                .size();
+    }
+
+    @Override
+    public Iterator<int[]> iterateByTwo(int first_element, int second_element) {
+        List<Integer> third_elements = this.index.getOrDefault(first_element, Collections.emptyMap())
+                .getOrDefault(second_element, Collections.emptyList());
+        return new NestedIterator(List.of(Map.entry(first_element, Map.of(second_element, third_elements))).iterator());
+    }
+
+    @Override
+    public Iterator<int[]> iterateByOne(int first_element) {
+        Map<Integer, List<Integer>> map_match = this.index.getOrDefault(first_element, Collections.emptyMap());
+        return new NestedIterator(List.of(Map.entry(first_element, map_match)).iterator());
+    }
+
+    @Override
+    public Iterator<int[]> iterateAll() {
+        return new NestedIterator(this.index.entrySet().iterator());
+    }
+
+    /**
+     * Parcourt paresseusement les feuilles des groupes donnés (premier élément -> second élément -> troisièmes éléments).
+     * Le tableau renvoyé est réutilisé d'un appel à l'autre.
+     */
+    private static final class NestedIterator implements Iterator<int[]> {
+        private final int[] buffer = new int[3];
+        private final Iterator<Map.Entry<Integer, Map<Integer, List<Integer>>>> groups;
+        private Iterator<Map.Entry<Integer, List<Integer>>> leaves = Collections.emptyIterator();
+        private Iterator<Integer> values = Collections.emptyIterator();
+        private int first_element;
+        private int second_element;
+
+        NestedIterator(Iterator<Map.Entry<Integer, Map<Integer, List<Integer>>>> groups) {
+            this.groups = groups;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!values.hasNext()) {
+                while (!leaves.hasNext()) {
+                    if (!groups.hasNext()) {return false;}
+                    Map.Entry<Integer, Map<Integer, List<Integer>>> group = groups.next();
+                    first_element = group.getKey();
+                    leaves = group.getValue().entrySet().iterator();
+                }
+                Map.Entry<Integer, List<Integer>> leaf = leaves.next();
+                second_element = leaf.getKey();
+                values = leaf.getValue().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            buffer[0] = first_element;
+            buffer[1] = second_element;
+            buffer[2] = values.next();
+            return buffer;
+        }
+    }
+
+    @Override
+    public void forEachTriplet(TripletConsumer consumer) {
+        index.forEach((first_element, map_match) ->
+                map_match.forEach((second_element, third_elements) -> {
+                    for (Integer third_element : third_elements) {
+                        consumer.accept(first_element, second_element, third_element);
+                    }
+                }));
+    }
+}
@@ -1,64 +1,100 @@
 package qengine.model;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Iterator;
+import java.util.List;
 
-public class Index {
-    private final Map<Integer, Map<Integer, List<Integer>>> index;
+/**
+ * Contrat d'un index de triplets encodés, organisé sur trois niveaux
+ * (premier élément -> second élément -> troisièmes éléments).
+ * Les six permutations de l'hexastore partagent ce contrat : seul l'ordre
+ * des éléments du triplet inséré change.
+ */
+public interface Index {
 
-    public Index() {
-        // Utilisation de ConcurrentHashMap pour éviter les problèmes de concurrence (si nécessaire)
-        this.index = new ConcurrentHashMap<>();
-    }
+    /**
+     * Ajoute un triplet encodé dans l'index.
+     * L'unicité des triplets est garantie par le store, pas par l'index.
+     *
+     * @param triplet le triplet, dans l'ordre de la permutation
+     */
+    void ajoutTriplet(int[] triplet);
 
-    // Méthode pour ajouter un triplet
-    public void ajoutTriplet(int[] triplet) {
-        // Obtenir ou créer le sous-index pour le sujet (triplet[0])
-        index.computeIfAbsent(triplet[0], k -> new ConcurrentHashMap<>())
-                // Obtenir ou créer la liste pour le prédicat (triplet[1])
-                .computeIfAbsent(triplet[1], k -> new ArrayList<>())
-                // Ajouter l'objet (triplet[2]) si non déjà présent
-                .add(triplet[2]);
-    }
+    /**
+     * @return les triplets correspondant exactement aux trois éléments donnés
+     */
+    List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element);
 
-    // Méthode pour rechercher des triplets pour les trois éléments données
-    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
-        Map<Integer, List<Integer>> first_elem_match =  this.index.getOrDefault(first_element, Collections.emptyMap());
-        List<Integer> second_elem_match =  first_elem_match.getOrDefault(second_element, Collections.emptyList());
-
-        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
-        for (Integer elem : second_elem_match){
-            if(Objects.equals(third_element, elem)) {
-                return_list.add(new int[]{first_element, second_element, third_element});
-            }
-        }
-        return return_list;
-    }
+    /**
+     * @return les triplets dont les deux premiers éléments correspondent
+     */
+    List<int[]> searchByTwo(Integer first_element, Integer second_element);
 
-    // Méthode pour rechercher des variables (?x) pour deux éléments donnés
-    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
-        List<Integer> third_elem_match =  this.index.getOrDefault(first_element, Collections.emptyMap())
-                .getOrDefault(second_element, Collections.emptyList());
+    /**
+     * @return les triplets dont le premier élément correspond
+     */
+    List<int[]> searchByOne(Integer first_element);
 
-        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
-        for (Integer third_element : third_elem_match){
-            return_list.add(new int[]{first_element, second_element, third_element});
-        }
-        return return_list;
-    }
+    /**
+     * Renvoie les troisièmes éléments associés à un couple (premier, second),
+     * triés par ordre croissant et sans doublon : c'est la liste de candidats
+     * utilisée par les intersections de listes triées.
+     *
+     * @return un tableau trié, vide si le couple est absent
+     */
+    int[] getThirdElements(int first_element, int second_element);
+
+    /**
+     * @return vrai si le triplet est présent dans l'index
+     */
+    boolean containsTriplet(int first_element, int second_element, int third_element);
+
+    /**
+     * @return le nombre de triplets de l'index
+     */
+    int size();
+
+    /**
+     * Nombre de triplets dont le premier élément correspond.
+     * Lu directement dans la structure de l'index, sans parcourir les triplets.
+     */
+    int countByOne(int first_element);
+
+    /**
+     * Nombre de triplets dont les deux premiers éléments correspondent (taille de la feuille).
+     */
+    int countByTwo(int first_element, int second_element);
+
+    /**
+     * Itérateur paresseux sur les triplets dont les deux premiers éléments correspondent.
+     * Le tableau renvoyé par {@code next()} est réutilisé d'un appel à l'autre :
+     * il faut le copier pour le conserver.
+     */
+    Iterator<int[]> iterateByTwo(int first_element, int second_element);
 
-    // Méthode pour rechercher des variables (?x, ?y) pour un élément donné
-    public List<int[]> searchByOne(Integer first_element) {
-        Map<Integer, List<Integer>> map_match =  this.index.getOrDefault(first_element, Collections.emptyMap());
+    /**
+     * Itérateur paresseux sur les triplets dont le premier élément correspond.
+     * Même contrat de réutilisation du tableau que {@link #iterateByTwo(int, int)}.
+     */
+    Iterator<int[]> iterateByOne(int first_element);
 
-        List<int[]> return_list = new ArrayList<>(Collections.emptyList());
+    /**
+     * Itérateur paresseux sur tous les triplets de l'index.
+     * Même contrat de réutilisation du tableau que {@link #iterateByTwo(int, int)}.
+     */
+    Iterator<int[]> iterateAll();
 
-        for (Integer second_element :  map_match.keySet()){
-            for (Integer third_element : map_match.get(second_element)){
-                return_list.add(new int[]{first_element, second_element, third_element});
-            }
-        }
+    /**
+     * Parcourt tous les triplets de l'index, dans l'ordre de la permutation.
+     *
+     * @param consumer appelé une fois par triplet
+     */
+    void forEachTriplet(TripletConsumer consumer);
 
-        return return_list;
+    /**
+     * Consommateur de triplets encodés, sans allocation de tableau.
+     */
+    @FunctionalInterface
+    interface TripletConsumer {
+        void accept(int first, int second, int third);
     }
 }
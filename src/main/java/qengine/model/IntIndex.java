@@ -0,0 +1,300 @@
+package qengine.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Implémentation de {@link Index} sur des structures d'entiers primitifs, sans aucun boxing.
+ *
+ * Chaque couple (premier, second) est associé à une feuille : un tableau d'entiers contenant
+ * les troisièmes éléments. Chaque premier élément est associé à un groupe : la liste des
+ * feuilles qui le concernent, pour pouvoir répondre à {@link #searchByOne(Integer)}.
+ */
+public class IntIndex implements Index {
+    private static final int[] EMPTY = new int[0];
+
+    // premier élément -> numéro de groupe
+    private final IntIntMap groupOfFirst = new IntIntMap();
+    // (premier, second) -> numéro de feuille
+    private final LongIntMap leafOfPair = new LongIntMap();
+
+    // Groupes : premier élément, nombre de triplets et numéros des feuilles qui lui sont rattachées
+    private int[] groupFirst = new int[16];
+    private int[] groupCounts = new int[16];
+    private int[][] groupLeaves = new int[16][];
+    private int[] groupSizes = new int[16];
+    private int groupCount = 0;
+
+    // Feuilles : second élément et troisièmes éléments d'un couple (premier, second)
+    private int[] leafSecond = new int[16];
+    private int[][] leafValues = new int[16][];
+    private int[] leafSizes = new int[16];
+    private int leafCount = 0;
+
+    private int tripletCount = 0;
+
+    @Override
+    public void ajoutTriplet(int[] triplet) {
+        long pair = LongIntMap.pack(triplet[0], triplet[1]);
+        int leaf = leafOfPair.get(pair, -1);
+        if (leaf == -1) {
+            leaf = newLeaf(triplet[1]);
+            leafOfPair.put(pair, leaf);
+            attachLeaf(triplet[0], leaf);
+        }
+        groupCounts[groupOfFirst.get(triplet[0], -1)]++;
+
+        int[] values = leafValues[leaf];
+        int size = leafSizes[leaf];
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(1, size * 2));
+            leafValues[leaf] = values;
+        }
+        values[size] = triplet[2];
+        leafSizes[leaf] = size + 1;
+        tripletCount++;
+    }
+
+    @Override
+    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        List<int[]> return_list = new ArrayList<>();
+        if (leaf == -1) {
+            return return_list;
+        }
+
+        int[] values = leafValues[leaf];
+        for (int i = 0; i < leafSizes[leaf]; i++) {
+            if (values[i] == third_element) {
+                return_list.add(new int[]{first_element, second_element, third_element});
+            }
+        }
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        if (leaf == -1) {
+            return new ArrayList<>();
+        }
+
+        List<int[]> return_list = new ArrayList<>(leafSizes[leaf]);
+        addLeaf(return_list, first_element, leaf);
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByOne(Integer first_element) {
+        int group = groupOfFirst.get(first_element, -1);
+        List<int[]> return_list = new ArrayList<>();
+        if (group == -1) {
+            return return_list;
+        }
+
+        int[] leaves = groupLeaves[group];
+        for (int i = 0; i < groupSizes[group]; i++) {
+            addLeaf(return_list, first_element, leaves[i]);
+        }
+        return return_list;
+    }
+
+    @Override
+    public int[] getThirdElements(int first_element, int second_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        if (leaf == -1) {
+            return EMPTY;
+        }
+
+        // Les feuilles ne sont pas triées tant que l'index est modifiable
+        int[] values = Arrays.copyOf(leafValues[leaf], leafSizes[leaf]);
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public boolean containsTriplet(int first_element, int second_element, int third_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        if (leaf == -1) {
+            return false;
+        }
+
+        int[] values = leafValues[leaf];
+        for (int i = 0; i < leafSizes[leaf]; i++) {
+            if (values[i] == third_element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return tripletCount;
+    }
+
+    @Override
+    public int countByOne(int first_element) {
+        int group = groupOfFirst.get(first_element, -1);
+        return group == -1 ? 0 : groupCounts[group];
+    }
+
+    @Override
+    public int countByTwo(int first_element, int second_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        return leaf == -1 ? 0 : leafSizes[leaf];
+    }
+
+    @Override
+    public Iterator<int[]> iterateByTwo(int first_element, int second_element) {
+        int leaf = leafOfPair.get(LongIntMap.pack(first_element, second_element), -1);
+        if (leaf == -1) {
+            return new GroupIterator(0, 0, -1);
+        }
+        int group = groupOfFirst.get(first_element, -1);
+        return new GroupIterator(group, group + 1, leaf);
+    }
+
+    @Override
+    public Iterator<int[]> iterateByOne(int first_element) {
+        int group = groupOfFirst.get(first_element, -1);
+        return group == -1 ? new GroupIterator(0, 0, -1) : new GroupIterator(group, group + 1, -1);
+    }
+
+    @Override
+    public Iterator<int[]> iterateAll() {
+        return new GroupIterator(0, groupCount, -1);
+    }
+
+    @Override
+    public void forEachTriplet(TripletConsumer consumer) {
+        for (int group = 0; group < groupCount; group++) {
+            int[] leaves = groupLeaves[group];
+            for (int i = 0; i < groupSizes[group]; i++) {
+                int leaf = leaves[i];
+                int[] values = leafValues[leaf];
+                for (int j = 0; j < leafSizes[leaf]; j++) {
+                    consumer.accept(groupFirst[group], leafSecond[leaf], values[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parcourt paresseusement les feuilles d'une plage de groupes, ou une seule feuille.
+     * Le tableau renvoyé est réutilisé d'un appel à l'autre.
+     */
+    private final class GroupIterator implements Iterator<int[]> {
+        private final int[] buffer = new int[3];
+        private final int groupEnd;
+        private final boolean singleLeaf;
+        private int group;
+        private int leafPosition;
+        private int leaf;
+        private int valuePosition;
+
+        /// Parcourt les groupes de `groupFrom` (inclus) à `groupTo` (exclu),
+        /// ou uniquement la feuille `onlyLeaf` si elle est différente de -1
+        GroupIterator(int groupFrom, int groupTo, int onlyLeaf) {
+            this.group = groupFrom;
+            this.groupEnd = groupTo;
+            this.singleLeaf = onlyLeaf != -1;
+            this.leafPosition = -1;
+            this.leaf = onlyLeaf;
+            if (!singleLeaf) {
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != -1 && valuePosition < leafSizes[leaf];
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            buffer[0] = groupFirst[group];
+            buffer[1] = leafSecond[leaf];
+            buffer[2] = leafValues[leaf][valuePosition++];
+            if (valuePosition == leafSizes[leaf] && !singleLeaf) {
+                advance();
+            }
+            return buffer;
+        }
+
+        /// Passe à la prochaine feuille non vide, ou met `leaf` à -1 en fin de parcours
+        private void advance() {
+            valuePosition = 0;
+            while (group < groupEnd) {
+                if (++leafPosition < groupSizes[group]) {
+                    leaf = groupLeaves[group][leafPosition];
+                    if (leafSizes[leaf] > 0) {
+                        return;
+                    }
+                } else {
+                    group++;
+                    leafPosition = -1;
+                }
+            }
+            leaf = -1;
+        }
+    }
+
+    private void addLeaf(List<int[]> return_list, int first_element, int leaf) {
+        int second_element = leafSecond[leaf];
+        int[] values = leafValues[leaf];
+        for (int i = 0; i < leafSizes[leaf]; i++) {
+            return_list.add(new int[]{first_element, second_element, values[i]});
+        }
+    }
+
+    private int newLeaf(int second_element) {
+        if (leafCount == leafSecond.length) {
+            int capacity = leafCount + (leafCount >> 1);
+            leafSecond = Arrays.copyOf(leafSecond, capacity);
+            leafValues = Arrays.copyOf(leafValues, capacity);
+            leafSizes = Arrays.copyOf(leafSizes, capacity);
+        }
+        leafSecond[leafCount] = second_element;
+        leafValues[leafCount] = EMPTY;
+        return leafCount++;
+    }
+
+    private void attachLeaf(int first_element, int leaf) {
+        int group = groupOfFirst.get(first_element, -1);
+        if (group == -1) {
+            if (groupCount == groupLeaves.length) {
+                int capacity = groupCount + (groupCount >> 1);
+                groupFirst = Arrays.copyOf(groupFirst, capacity);
+                groupCounts = Arrays.copyOf(groupCounts, capacity);
+                groupLeaves = Arrays.copyOf(groupLeaves, capacity);
+                groupSizes = Arrays.copyOf(groupSizes, capacity);
+            }
+            group = groupCount++;
+            groupFirst[group] = first_element;
+            groupLeaves[group] = EMPTY;
+            groupOfFirst.put(first_element, group);
+        }
+
+        int[] leaves = groupLeaves[group];
+        int size = groupSizes[group];
+        if (size == leaves.length) {
+            leaves = Arrays.copyOf(leaves, Math.max(1, size * 2));
+            groupLeaves[group] = leaves;
+        }
+        leaves[size] = leaf;
+        groupSizes[group] = size + 1;
+    }
+}
@@ -0,0 +1,83 @@
+package qengine.model;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à adressage ouvert (sondage linéaire) d'entiers vers entiers, sans boxing.
+ * Les clés sont des identifiants du dictionnaire, donc positives : {@link #FREE} marque une case vide.
+ */
+final class IntIntMap {
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    IntIntMap() {
+        this(16);
+    }
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /// Renvoie la valeur associée à la clé, ou `defaultValue` si la clé est absente.
+    int get(int key, int defaultValue) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /// Associe la valeur à la clé, en remplaçant une éventuelle valeur existante.
+    void put(int key, int value) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Facteur de charge maximal de 0.5 pour garder des sondages courts
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package qengine.model;
+
+import java.util.Arrays;
+
+/**
+ * Tampon compact de triplets encodés au format SPO : trois entiers consécutifs par triplet,
+ * dans un seul tableau qui grandit au fil du chargement (12 octets par triplet).
+ */
+public class IntTripleBuffer {
+    private int[] data;
+    private int size = 0;
+
+    public IntTripleBuffer() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedTriplets nombre de triplets attendus, pour dimensionner le tableau
+     */
+    public IntTripleBuffer(int expectedTriplets) {
+        this.data = new int[Math.max(1, expectedTriplets) * 3];
+    }
+
+    /// Ajoute un triplet en fin de tampon
+    public void add(int subject, int predicate, int object) {
+        if (size * 3 == data.length) {
+            data = Arrays.copyOf(data, data.length + Math.max(3, (data.length >> 1) / 3 * 3));
+        }
+        data[size * 3] = subject;
+        data[size * 3 + 1] = predicate;
+        data[size * 3 + 2] = object;
+        size++;
+    }
+
+    /// Nombre de triplets du tampon
+    public int size() {
+        return size;
+    }
+
+    /// Élément `position` (0 sujet, 1 prédicat, 2 objet) du triplet `triplet`
+    public int get(int triplet, int position) {
+        return data[triplet * 3 + position];
+    }
+
+    /// Remplace chaque identifiant par son image dans `mapping` (après une renumérotation du dictionnaire)
+    public void remap(int[] mapping) {
+        for (int i = 0; i < size * 3; i++) {
+            data[i] = mapping[data[i]];
+        }
+    }
+
+    /// Parcourt les triplets dans leur ordre d'ajout
+    public void forEachTriplet(Index.TripletConsumer consumer) {
+        for (int i = 0; i < size * 3; i += 3) {
+            consumer.accept(data[i], data[i + 1], data[i + 2]);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package qengine.model;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage à adressage ouvert (sondage linéaire) de longs vers entiers, sans boxing.
+ * Sert à indexer des couples d'identifiants packés sur 64 bits (voir {@link #pack(int, int)}).
+ */
+final class LongIntMap {
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntMap() {
+        this(16);
+    }
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE);
+    }
+
+    /// Packe deux identifiants positifs en une seule clé.
+    static long pack(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /// Renvoie la valeur associée à la clé, ou `defaultValue` si la clé est absente.
+    int get(long key, int defaultValue) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /// Associe la valeur à la clé, en remplaçant une éventuelle valeur existante.
+    void put(long key, int value) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        // Facteur de charge maximal de 0.5 pour garder des sondages courts
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package qengine.model;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Index figé lu directement dans un fichier projeté en mémoire ({@link FileChannel#map}).
+ *
+ * Même organisation CSR que {@link FrozenIndex}, dans le format écrit par {@link FrozenIndex#writeTo} :
+ * les quatre tableaux restent hors du tas Java, dans les pages du fichier, et ne sont chargés
+ * par le système qu'à la demande. Seules des lectures absolues sont faites sur les tampons :
+ * l'index peut être interrogé depuis plusieurs threads.
+ */
+public class MappedIndex implements Index {
+    private final IntBuffer firstOffsets;
+    private final IntBuffer secondKeys;
+    private final IntBuffer secondOffsets;
+    private final IntBuffer values;
+    // Position, dans le fichier, de l'octet qui suit l'index
+    private final long end;
+
+    private MappedIndex(IntBuffer firstOffsets, IntBuffer secondKeys, IntBuffer secondOffsets, IntBuffer values, long end) {
+        this.firstOffsets = firstOffsets;
+        this.secondKeys = secondKeys;
+        this.secondOffsets = secondOffsets;
+        this.values = values;
+        this.end = end;
+    }
+
+    /**
+     * Projette en mémoire un index écrit par {@link FrozenIndex#writeTo} à la position donnée.
+     * La projection reste valide après la fermeture du canal.
+     *
+     * @param channel  canal ouvert en lecture sur le fichier
+     * @param position position du début de l'index dans le fichier
+     */
+    public static MappedIndex map(FileChannel channel, long position) throws IOException {
+        IntBuffer[] arrays = new IntBuffer[4];
+        for (int i = 0; i < arrays.length; i++) {
+            int length = channel.map(FileChannel.MapMode.READ_ONLY, position, Integer.BYTES).getInt(0);
+            position += Integer.BYTES;
+            arrays[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) length * Integer.BYTES).asIntBuffer();
+            position += (long) length * Integer.BYTES;
+        }
+        return new MappedIndex(arrays[0], arrays[1], arrays[2], arrays[3], position);
+    }
+
+    /**
+     * @return la position, dans le fichier, de l'octet qui suit cet index
+     */
+    public long end() {
+        return end;
+    }
+
+    @Override
+    public void ajoutTriplet(int[] triplet) {
+        throw new UnsupportedOperationException("L'index est projeté en lecture seule, il ne peut pas être modifié.");
+    }
+
+    @Override
+    public List<int[]> searchByThree(Integer first_element, Integer second_element, Integer third_element) {
+        List<int[]> return_list = new ArrayList<>();
+        if (containsTriplet(first_element, second_element, third_element)) {
+            return_list.add(new int[]{first_element, second_element, third_element});
+        }
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByTwo(Integer first_element, Integer second_element) {
+        List<int[]> return_list = new ArrayList<>();
+        iterateByTwo(first_element, second_element).forEachRemaining(triplet -> return_list.add(triplet.clone()));
+        return return_list;
+    }
+
+    @Override
+    public List<int[]> searchByOne(Integer first_element) {
+        List<int[]> return_list = new ArrayList<>();
+        iterateByOne(first_element).forEachRemaining(triplet -> return_list.add(triplet.clone()));
+        return return_list;
+    }
+
+    @Override
+    public int[] getThirdElements(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        if (pair < 0) {
+            return new int[0];
+        }
+        int from = secondOffsets.get(pair);
+        int[] thirdElements = new int[secondOffsets.get(pair + 1) - from];
+        values.get(from, thirdElements);
+        return thirdElements;
+    }
+
+    @Override
+    public boolean containsTriplet(int first_element, int second_element, int third_element) {
+        int pair = findPair(first_element, second_element);
+        return pair >= 0 && binarySearch(values, secondOffsets.get(pair), secondOffsets.get(pair + 1), third_element) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.limit();
+    }
+
+    @Override
+    public int countByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.limit() - 1) {
+            return 0;
+        }
+        return secondOffsets.get(firstOffsets.get(first_element + 1)) - secondOffsets.get(firstOffsets.get(first_element));
+    }
+
+    @Override
+    public int countByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? 0 : secondOffsets.get(pair + 1) - secondOffsets.get(pair);
+    }
+
+    @Override
+    public Iterator<int[]> iterateByTwo(int first_element, int second_element) {
+        int pair = findPair(first_element, second_element);
+        return pair < 0 ? new RangeIterator(0, 0, 0) : new RangeIterator(first_element, pair, pair + 1);
+    }
+
+    @Override
+    public Iterator<int[]> iterateByOne(int first_element) {
+        if (first_element < 0 || first_element >= firstOffsets.limit() - 1) {
+            return new RangeIterator(0, 0, 0);
+        }
+        return new RangeIterator(first_element, firstOffsets.get(first_element), firstOffsets.get(first_element + 1));
+    }
+
+    @Override
+    public Iterator<int[]> iterateAll() {
+        return new RangeIterator(0, 0, secondKeys.limit());
+    }
+
+    @Override
+    public void forEachTriplet(TripletConsumer consumer) {
+        Iterator<int[]> triplets = iterateAll();
+        while (triplets.hasNext()) {
+            int[] triplet = triplets.next();
+            consumer.accept(triplet[0], triplet[1], triplet[2]);
+        }
+    }
+
+    /// Position du couple (premier, second) dans `secondKeys`, ou -1 s'il est absent.
+    private int findPair(int first_element, int second_element) {
+        if (first_element < 0 || first_element >= firstOffsets.limit() - 1) {
+            return -1;
+        }
+        int pair = binarySearch(secondKeys, firstOffsets.get(first_element), firstOffsets.get(first_element + 1), second_element);
+        return pair >= 0 ? pair : -1;
+    }
+
+    /// Recherche dichotomique dans la plage [from, to) d'un tampon trié, même contrat que `Arrays.binarySearch`
+    private static int binarySearch(IntBuffer buffer, int from, int to, int key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = buffer.get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Parcourt paresseusement une plage contiguë de couples (premier, second).
+     * Le tableau renvoyé est réutilisé d'un appel à l'autre.
+     */
+    private final class RangeIterator implements Iterator<int[]> {
+        private final int[] buffer = new int[3];
+        private final int valueEnd;
+        private int first;
+        private int pair;
+        private int value;
+
+        RangeIterator(int first, int pairFrom, int pairTo) {
+            this.first = first;
+            this.pair = pairFrom;
+            this.value = secondOffsets.get(pairFrom);
+            this.valueEnd = secondOffsets.get(pairTo);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return value < valueEnd;
+        }
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (value >= secondOffsets.get(pair + 1)) {
+                pair++;
+            }
+            while (pair >= firstOffsets.get(first + 1)) {
+                first++;
+            }
+            buffer[0] = first;
+            buffer[1] = secondKeys.get(pair);
+            buffer[2] = values.get(value++);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package qengine.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Empreinte de 128 bits de la forme canonique d'une requête en étoile (voir {@link StarQuery#getFingerprint()}).
+ *
+ * Deux requêtes qui ne diffèrent que par leur label, l'ordre de leurs atomes ou le nom de leurs variables
+ * ont la même empreinte. Sur 128 bits (MD5 du JDK, sans dépendance externe), une collision fortuite
+ * entre requêtes différentes est négligeable même sur des millions de requêtes : l'empreinte sert
+ * directement de clé de cache ou de dédoublonnage, sans comparer les atomes.
+ * Elle n'est jamais enregistrée : l'algorithme peut changer d'une version à l'autre.
+ */
+public final class QueryFingerprint {
+    private final long high;
+    private final long low;
+
+    private QueryFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param canonicalForm la forme canonique de la requête
+     * @return l'empreinte MD5 (128 bits) de sa représentation UTF-8
+     */
+    static QueryFingerprint of(String canonicalForm) {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // MD5 fait partie des algorithmes que toute JVM doit fournir
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(md5.digest(canonicalForm.getBytes(StandardCharsets.UTF_8)));
+        return new QueryFingerprint(bytes.getLong(), bytes.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryFingerprint that)) return false;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        // Les bits d'une empreinte sont déjà uniformément répartis
+        return (int) low;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -18,6 +18,9 @@ import java.util.stream.Collectors;
  */
 public class StarQuery implements Query {
 
+    /// Valeur de {@link #getLimit()} pour une requête sans clause LIMIT
+    public static final long NO_LIMIT = -1;
+
     // Label de la requête
     private final String label;
 
@@ -30,6 +33,12 @@ public class StarQuery implements Query {
     // Variable centrale de la requête en étoile
     private final Variable centralVariable;
 
+    // Nombre maximal de réponses (clause LIMIT), ou NO_LIMIT
+    private final long limit;
+
+    // Forme canonique, calculée au premier appel de getFingerprint() ou getCanonicalVariables()
+    private volatile Canonical canonical;
+
     /**
      * Constructeur pour une requête en étoile.
      *
@@ -40,6 +49,24 @@ public class StarQuery implements Query {
      * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile
      */
     public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables) {
+        this(label, rdfAtoms, answerVariables, NO_LIMIT);
+    }
+
+    /**
+     * Constructeur pour une requête en étoile limitée à ses {@code limit} premières réponses.
+     *
+     * @param label           le label de la requête
+     * @param rdfAtoms        la collection des triplets RDF
+     * @param answerVariables les variables réponses
+     * @param limit           le nombre maximal de réponses, ou {@link #NO_LIMIT}
+     * @throws NullPointerException     si l'un des paramètres est null
+     * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile ou si la limite est négative
+     */
+    public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables, long limit) {
+        if (limit < 0 && limit != NO_LIMIT) {
+            throw new IllegalArgumentException("La limite ne peut pas être négative : " + limit);
+        }
+        this.limit = limit;
         this.label = Objects.requireNonNull(label, "Le label ne peut pas être null.");
         this.rdfAtoms = Objects.requireNonNull(rdfAtoms, "Les triplets RDF ne peuvent pas être null.");
         this.answerVariables = Objects.requireNonNull(answerVariables, "Les variables réponses ne peuvent pas être null.");
@@ -125,6 +152,22 @@ public class StarQuery implements Query {
         return centralVariable;
     }
 
+    /**
+     * Retourne le nombre maximal de réponses demandé par la clause LIMIT.
+     *
+     * @return la limite, ou {@link #NO_LIMIT} si la requête n'est pas limitée
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true si la requête a une clause LIMIT
+     */
+    public boolean hasLimit() {
+        return limit != NO_LIMIT;
+    }
+
     /**
      * Retourne la collection des triplets RDF.
      *
@@ -134,8 +177,165 @@ public class StarQuery implements Query {
         return rdfAtoms;
     }
 
+    /**
+     * Retourne l'empreinte de la forme canonique de la requête, calculée une seule fois.
+     * Contrairement à {@link #equals(Object)}, elle ignore le label, l'ordre des atomes
+     * et le nom des variables : elle sert de clé de cache et de dédoublonnage
+     * (voir {@link #computeCanonical()} pour les rares requêtes dont l'empreinte dépend encore de l'ordre des atomes).
+     *
+     * @return l'empreinte de 128 bits de la requête
+     */
+    public QueryFingerprint getFingerprint() {
+        return canonical().fingerprint;
+    }
+
+    /**
+     * Retourne les variables de la requête dans l'ordre de la forme canonique :
+     * la variable centrale d'abord, puis les autres dans leur ordre d'apparition dans les atomes triés.
+     * Deux requêtes de même empreinte se correspondent variable par variable dans cet ordre.
+     *
+     * @return les variables de la requête, renommées ?0, ?1... dans la forme canonique
+     */
+    public List<Variable> getCanonicalVariables() {
+        return canonical().variables;
+    }
+
+    private Canonical canonical() {
+        Canonical result = canonical;
+        if (result == null) {
+            // Calcul idempotent : deux threads concurrents obtiennent la même forme
+            result = computeCanonical();
+            canonical = result;
+        }
+        return result;
+    }
+
+    /**
+     * Construit la forme canonique. Chaque atome est d'abord écrit avec la variable centrale renommée ?0
+     * et les autres variables remplacées par leur classe : au départ, variable réponse ou non ; puis, à chaque passe,
+     * la classe d'une variable est affinée par les écritures des atomes où elle apparaît et sa position dans chacun,
+     * jusqu'à ce qu'aucune classe ne se divise plus. Les atomes sont triés sur cette écriture, les autres variables
+     * numérotées dans leur ordre d'apparition, puis les atomes numérotés sont triés à leur tour.
+     * Les variables réponses, renommées, terminent la forme canonique.
+     *
+     * L'ordre des atomes est ignoré tant que des variables de même classe sont interchangeables
+     * (ex. {@code ?x p ?y . ?x p ?z . ?x q ?y} et {@code ?x p ?a . ?x q ?b . ?x p ?b}).
+     * Seules des structures régulières, où l'affinage ne distingue pas des variables qui ne sont pas
+     * interchangeables (atomes à prédicat variable formant des cycles entre variables), peuvent encore donner
+     * deux empreintes à deux écritures de la même requête : un dédoublonnage ou une entrée de cache manqués,
+     * jamais une mauvaise réponse.
+     */
+    private Canonical computeCanonical() {
+        Map<Variable, Integer> classes = new HashMap<>();
+        for (RDFAtom atom : rdfAtoms) {
+            for (Term term : atom.getTerms()) {
+                if (term instanceof Variable variable && !variable.equals(centralVariable)) {
+                    classes.put(variable, answerVariables.contains(variable) ? 2 : 1);
+                }
+            }
+        }
+        long classCount = classes.values().stream().distinct().count();
+        List<String> patterns;
+        while (true) {
+            patterns = new ArrayList<>(rdfAtoms.size());
+            for (RDFAtom atom : rdfAtoms) {
+                patterns.add(pattern(atom, classes));
+            }
+            // Signature d'une variable : sa classe, puis les écritures des atomes où elle apparaît avec sa position
+            Map<Variable, List<String>> occurrences = new HashMap<>();
+            for (int i = 0; i < rdfAtoms.size(); i++) {
+                Term[] terms = rdfAtoms.get(i).getTerms();
+                for (int position = 0; position < terms.length; position++) {
+                    if (classes.containsKey(terms[position])) {
+                        occurrences.computeIfAbsent((Variable) terms[position], variable -> new ArrayList<>())
+                                .add(position + patterns.get(i));
+                    }
+                }
+            }
+            Map<Variable, String> signatures = new HashMap<>();
+            occurrences.forEach((variable, atoms) -> {
+                Collections.sort(atoms);
+                signatures.put(variable, classes.get(variable) + atoms.toString());
+            });
+            // Les classes sont renumérotées à partir de 1 dans l'ordre des signatures (0 : variable centrale)
+            List<String> ranks = signatures.values().stream().distinct().sorted().toList();
+            if (ranks.size() == classCount) {
+                break;
+            }
+            classCount = ranks.size();
+            signatures.forEach((variable, signature) -> classes.put(variable, ranks.indexOf(signature) + 1));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < rdfAtoms.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(patterns::get));
+
+        List<Variable> variables = new ArrayList<>();
+        variables.add(centralVariable);
+        List<String> numberedAtoms = new ArrayList<>(rdfAtoms.size());
+        for (int i : order) {
+            StringBuilder numbered = new StringBuilder();
+            for (Term term : rdfAtoms.get(i).getTerms()) {
+                if (term instanceof Variable variable) {
+                    if (!variables.contains(variable)) {
+                        variables.add(variable);
+                    }
+                    appendTerm(numbered, "?", Integer.toString(variables.indexOf(variable)));
+                } else {
+                    appendTerm(numbered, "c", term.label());
+                }
+            }
+            numberedAtoms.add(numbered.append('.').toString());
+        }
+        // Des atomes de même écriture ne sont départagés que par les numéros de leurs variables
+        Collections.sort(numberedAtoms);
+        StringBuilder form = new StringBuilder(String.join("", numberedAtoms));
+        answerVariables.stream()
+                .mapToInt(variables::indexOf)
+                .distinct()
+                .sorted()
+                .forEach(index -> appendTerm(form, "a", Integer.toString(index)));
+        if (hasLimit()) {
+            appendTerm(form, "l", Long.toString(limit));
+        }
+
+        return new Canonical(QueryFingerprint.of(form.toString()), Collections.unmodifiableList(variables));
+    }
+
+    /// Écrit un atome avec la variable centrale renommée ?0 et les autres variables remplacées par leur classe
+    private String pattern(RDFAtom atom, Map<Variable, Integer> classes) {
+        StringBuilder pattern = new StringBuilder();
+        for (Term term : atom.getTerms()) {
+            if (term.equals(centralVariable)) {
+                appendTerm(pattern, "?", "0");
+            } else if (term instanceof Variable variable) {
+                appendTerm(pattern, "?", Integer.toString(classes.get(variable)));
+            } else {
+                appendTerm(pattern, "c", term.label());
+            }
+        }
+        return pattern.toString();
+    }
+
+    /// Écrit un terme préfixé par sa nature et sa longueur : aucune concaténation de libellés n'est ambiguë
+    private static void appendTerm(StringBuilder builder, String kind, String label) {
+        builder.append(kind).append(label.length()).append(':').append(label);
+    }
+
+    private static final class Canonical {
+        private final QueryFingerprint fingerprint;
+        private final List<Variable> variables;
+
+        Canonical(QueryFingerprint fingerprint, List<Variable> variables) {
+            this.fingerprint = fingerprint;
+            this.variables = variables;
+        }
+    }
+
     /**
      * Convertit la requete en étoile en requete pour Integraal
+     * (sans la limite : Integraal rend toutes les réponses)
      *
      * @return FOQuery
      */
@@ -152,12 +352,13 @@ public class StarQuery implements Query {
         return label.equals(that.label) &&
                 rdfAtoms.equals(that.rdfAtoms) &&
                 answerVariables.equals(that.answerVariables) &&
-                centralVariable.equals(that.centralVariable);
+                centralVariable.equals(that.centralVariable) &&
+                limit == that.limit;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable);
+        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable, limit);
     }
 
     @Override
@@ -167,6 +368,7 @@ public class StarQuery implements Query {
                 ",\n\t rdfAtoms=" + rdfAtoms +
                 ",\n\t answerVariables=" + answerVariables +
                 ",\n\t centralVariable=" + centralVariable +
+                (hasLimit() ? ",\n\t limit=" + limit : "") +
                 '}';
     }
 }
@@ -10,6 +10,7 @@ import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 import org.eclipse.rdf4j.query.algebra.Projection;
 import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
+import org.eclipse.rdf4j.query.algebra.Slice;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
 import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
@@ -20,13 +21,20 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Un parser pour analyser des requêtes SparQL en requêtes en étoile.
  */
 public class StarQuerySparQLParser implements Parser<Query> {
 
-    private final Iterator<String> queryIterator;
+    // Fin d'une requête : accolade fermante en fin de ligne, éventuellement suivie de clauses LIMIT / OFFSET sur la même ligne
+    private static final Pattern QUERY_END = Pattern.compile("}\\s*((LIMIT|OFFSET)\\s+\\d+\\s*)*$", Pattern.CASE_INSENSITIVE);
+    // Clause LIMIT ou OFFSET écrite sur sa propre ligne, après l'accolade fermante
+    private static final Pattern SOLUTION_MODIFIER = Pattern.compile("^\\s*(LIMIT|OFFSET)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final List<String> lines;
+    private int position = 0;
     private final TermFactory termFactory = SameObjectTermFactory.instance();
     private final SPARQLParser sparqlParser = new SPARQLParser();
     private Query nextQuery = null;
@@ -38,8 +46,7 @@ public class StarQuerySparQLParser implements Parser<Query> {
      * @throws IOException si le fichier ne peut pas être lu
      */
     public StarQuerySparQLParser(String sparqlFilePath) throws IOException {
-        List<String> lines = Files.readAllLines(Paths.get(sparqlFilePath));
-        this.queryIterator = lines.iterator();
+        this.lines = Files.readAllLines(Paths.get(sparqlFilePath));
     }
 
     @Override
@@ -49,18 +56,19 @@ public class StarQuerySparQLParser implements Parser<Query> {
         }
 
         try {
-            while (queryIterator.hasNext()) {
+            while (position < lines.size()) {
                 StringBuilder queryBuilder = new StringBuilder();
 
-                // Construire une requête multi-ligne jusqu'à rencontrer "}"
-                while (queryIterator.hasNext()) {
-                    String line = queryIterator.next();
+                // Construire une requête multi-ligne jusqu'à rencontrer "}", éventuellement suivie de LIMIT n ou OFFSET n
+                while (position < lines.size()) {
+                    String line = lines.get(position++);
                     queryBuilder.append(line).append(System.lineSeparator());
 
-                    if (line.trim().endsWith("}")) {
+                    if (QUERY_END.matcher(line).find()) {
                         break;
                     }
                 }
+                appendSolutionModifiers(queryBuilder);
 
                 String queryString = queryBuilder.toString().trim();
                 if (!queryString.isEmpty()) {
@@ -76,6 +84,25 @@ public class StarQuerySparQLParser implements Parser<Query> {
         return false;
     }
 
+    /**
+     * Rattache à la requête les clauses LIMIT / OFFSET écrites sur les lignes qui suivent l'accolade fermante,
+     * lignes vides comprises : sans cela, elles seraient lues comme le début de la requête suivante.
+     */
+    private void appendSolutionModifiers(StringBuilder queryBuilder) {
+        int next = position;
+        while (next < lines.size()) {
+            String line = lines.get(next);
+            if (line.isBlank()) {
+                next++;
+            } else if (SOLUTION_MODIFIER.matcher(line).find()) {
+                queryBuilder.append(line).append(System.lineSeparator());
+                position = ++next;
+            } else {
+                return;
+            }
+        }
+    }
+
     @Override
     public Query next() {
         if (!hasNext()) {
@@ -130,7 +157,7 @@ public class StarQuerySparQLParser implements Parser<Query> {
         List<Variable> answerVariables = extractAnswerVariables(parsedQuery, variables);
 
         // Construire la requête en étoile
-        return new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables);
+        return new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables, extractLimit(parsedQuery));
     }
 
     /**
@@ -165,6 +192,29 @@ public class StarQuerySparQLParser implements Parser<Query> {
                 .toList();
     }
 
+    /**
+     * Extrait la clause LIMIT de la requête SparQL analysée.
+     *
+     * @param parsedQuery la requête analysée
+     * @return la limite, ou {@link StarQuery#NO_LIMIT} si la requête n'en a pas
+     * @throws IllegalArgumentException si la requête a une clause OFFSET, non prise en charge
+     */
+    private long extractLimit(ParsedQuery parsedQuery) {
+        long[] limit = {StarQuery.NO_LIMIT};
+
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Slice slice) {
+                if (slice.hasOffset()) {
+                    throw new IllegalArgumentException("La clause OFFSET n'est pas prise en charge.");
+                }
+                limit[0] = slice.getLimit();
+            }
+        });
+
+        return limit[0];
+    }
+
     /**
      * Parcourt l'arbre d'expression pour récupérer le nœud `ProjectionElemList`.
      *
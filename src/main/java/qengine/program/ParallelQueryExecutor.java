@@ -0,0 +1,101 @@
+package qengine.program;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.model.StarQuery;
+import qengine.storage.RDFStorage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exécute une série de requêtes en étoile indépendantes en parallèle sur un même store.
+ *
+ * Le store doit être entièrement chargé avant l'exécution : les requêtes ne font que des lectures
+ * concurrentes. Chaque requête est une tâche du pool, les résultats sont rendus dans l'ordre
+ * des requêtes fournies, quel que soit l'ordre de fin des tâches.
+ */
+public class ParallelQueryExecutor implements AutoCloseable {
+    private final RDFStorage storage;
+    private final ExecutorService executor;
+    private final int workers;
+
+    private ParallelQueryExecutor(RDFStorage storage, ExecutorService executor, int workers) {
+        this.storage = storage;
+        this.executor = executor;
+        this.workers = workers;
+    }
+
+    /**
+     * Exécuteur sur un pool fixe de threads plateforme.
+     *
+     * @param storage le store interrogé
+     * @param workers nombre de threads du pool (au moins 1)
+     */
+    public static ParallelQueryExecutor fixed(RDFStorage storage, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Le nombre de threads doit être au moins 1 : " + workers);
+        }
+        return new ParallelQueryExecutor(storage, Executors.newFixedThreadPool(workers), workers);
+    }
+
+    /**
+     * Exécuteur sur des threads virtuels, un par requête.
+     * Le parallélisme effectif est alors borné par le nombre de cœurs du pool porteur.
+     *
+     * @param storage le store interrogé
+     */
+    public static ParallelQueryExecutor virtual(RDFStorage storage) {
+        return new ParallelQueryExecutor(storage, Executors.newVirtualThreadPerTaskExecutor(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return le nombre de threads du pool (nombre de cœurs pour les threads virtuels)
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Exécute toutes les requêtes et attend leurs résultats.
+     *
+     * @param starQueries les requêtes à exécuter
+     * @return pour chaque requête, dans le même ordre, l'ensemble de ses substitutions
+     */
+    public List<Set<Substitution>> executeAll(List<StarQuery> starQueries) {
+        List<Callable<Set<Substitution>>> tasks = new ArrayList<>(starQueries.size());
+        for (StarQuery starQuery : starQueries) {
+            tasks.add(() -> {
+                Set<Substitution> matches = new HashSet<>();
+                storage.match(starQuery).forEachRemaining(matches::add);
+                return matches;
+            });
+        }
+
+        List<Set<Substitution>> results = new ArrayList<>(starQueries.size());
+        try {
+            // invokeAll rend les futures dans l'ordre des tâches
+            for (Future<Set<Substitution>> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Exécution des requêtes interrompue", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Échec d'une requête", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
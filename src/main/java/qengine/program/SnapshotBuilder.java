@@ -0,0 +1,32 @@
+package qengine.program;
+
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static qengine.program.Utils.loadRDFData;
+
+/**
+ * Construit l'hexastore d'un fichier N-Triples et l'enregistre dans un instantané binaire.
+ * Les exécutions suivantes peuvent alors démarrer avec {@link RDFHexaStore#load(Path)}.
+ */
+public final class SnapshotBuilder {
+
+    public static void main(String[] args) throws IOException {
+        String dataPath = args.length > 0 ? args[0] : "data/500K.nt";
+        Path snapshotPath = Path.of(args.length > 1 ? args[1] : dataPath + ".snapshot");
+
+        RDFHexaStore hexastore = new RDFHexaStore();
+        loadRDFData(dataPath, hexastore);
+
+        long start = System.nanoTime();
+        hexastore.save(snapshotPath);
+        System.out.println("[INFO] Instantané écrit dans " + snapshotPath + " en " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+
+        start = System.nanoTime();
+        RDFHexaStore loaded = RDFHexaStore.load(snapshotPath);
+        System.out.println("[INFO] Instantané relu en " + (System.nanoTime() - start) / 1_000_000 + " ms ("
+                + loaded.size() + " triplets).");
+    }
+}
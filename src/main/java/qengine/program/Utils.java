@@ -13,6 +13,7 @@ import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 import qengine.parser.RDFAtomParser;
 import qengine.parser.StarQuerySparQLParser;
+import qengine.storage.IntResultSet;
 import qengine.storage.RDFHexaStore;
 import org.eclipse.rdf4j.rio.RDFFormat;
 
@@ -45,6 +46,24 @@ public class Utils {
         return rdfAtoms;
     }
 
+    /**
+     * Charge un fichier RDF dans un hexastore en une seule passe, sans construire la liste des atomes :
+     * les triplets sont encodés au fil du parsing (voir {@link RDFHexaStore#ingest}).
+     *
+     * @param rdfFilePath Chemin vers le fichier RDF à charger
+     * @param hexastore   Le store à remplir
+     * @return le nombre de triplets ajoutés
+     */
+    public static int loadRDFData(String rdfFilePath, RDFHexaStore hexastore) throws IOException {
+        FileReader rdfFile = new FileReader(rdfFilePath);
+
+        try (RDFAtomParser rdfAtomParser = new RDFAtomParser(rdfFile, RDFFormat.NTRIPLES)) {
+            int count = hexastore.ingest(rdfAtomParser.getRDFAtoms());
+            System.out.println("Total RDF Atoms loaded: " + count);
+            return count;
+        }
+    }
+
     /**
      * Parse et affiche le contenu d'un fichier de requêtes SparQL.
      *
@@ -153,4 +172,22 @@ public class Utils {
         }
         return results;
     }
+
+    /**
+     * Exécute une série de requêtes (StarQuery) sur l'Hexastore sans décoder les réponses :
+     * chaque résultat reste une suite de lignes de codes du dictionnaire ({@link IntResultSet}),
+     * sans objet construit par réponse.
+     *
+     * @param starQueries une liste d'objets StarQuery représentant les requêtes à exécuter.
+     * @param hexastore une instance de RDFHexaStore contenant les faits RDF sur lesquels les requêtes
+     *                  doivent être exécutées.
+     * @return pour chaque requête de `starQueries`, dans le même ordre, ses réponses encodées.
+     */
+    public static List<IntResultSet> executeWithHexastoreEncoded(List<StarQuery> starQueries, RDFHexaStore hexastore) {
+        List<IntResultSet> results = new ArrayList<>(starQueries.size());
+        for (StarQuery starQuery : starQueries) {
+            results.add(hexastore.matchCodes(starQuery));
+        }
+        return results;
+    }
 }
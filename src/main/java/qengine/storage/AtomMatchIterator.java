@@ -0,0 +1,100 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.exceptions.ValueNotFoundException;
+import qengine.model.Dictionnary;
+import qengine.model.RDFAtom;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Itérateur paresseux des substitutions d'un atome.
+ * Les triplets encodés sont lus au fil de l'eau dans l'index et les termes ne sont décodés
+ * qu'au moment de construire chaque substitution. Les triplets d'un index étant uniques,
+ * les substitutions produites le sont aussi : aucun ensemble intermédiaire n'est nécessaire.
+ */
+final class AtomMatchIterator implements Iterator<Substitution> {
+    private final Dictionnary dictionnary;
+    private final Iterator<int[]> triplets;
+    // Variable à chaque position (sujet, prédicat, objet), null pour une constante
+    private final Variable[] variables = new Variable[3];
+    // Position dans le triplet de l'index du sujet, du prédicat et de l'objet
+    private final int[] positions;
+    // Position précédente portant la même variable, ou -1
+    private final int[] sameAs = {-1, -1, -1};
+    private Substitution next;
+
+    /**
+     * @param dictionnary dictionnaire servant à décoder les termes
+     * @param atom        l'atome dont on cherche les correspondances
+     * @param triplets    les triplets encodés de l'index parcouru
+     * @param positions   position du sujet, du prédicat et de l'objet dans les triplets de cet index
+     */
+    AtomMatchIterator(Dictionnary dictionnary, RDFAtom atom, Iterator<int[]> triplets, int[] positions) {
+        this.dictionnary = dictionnary;
+        this.triplets = triplets;
+        this.positions = positions;
+
+        Term[] terms = atom.getTerms();
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i] instanceof Variable variable) {
+                variables[i] = variable;
+                for (int j = 0; j < i; j++) {
+                    if (variable.equals(variables[j])) {
+                        sameAs[i] = j;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && triplets.hasNext()) {
+            int[] triplet = triplets.next();
+            if (isConsistent(triplet)) {
+                next = decode(triplet);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Substitution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Substitution substitution = next;
+        next = null;
+        return substitution;
+    }
+
+    /// Une variable répétée dans l'atome doit prendre la même valeur à chacune de ses positions
+    private boolean isConsistent(int[] triplet) {
+        for (int i = 0; i < sameAs.length; i++) {
+            if (sameAs[i] != -1 && triplet[positions[i]] != triplet[positions[sameAs[i]]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Substitution decode(int[] triplet) {
+        Substitution substitution = new SubstitutionImpl();
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i] != null && sameAs[i] == -1) {
+                try {
+                    substitution.add(variables[i], dictionnary.getValue(triplet[positions[i]]));
+                } catch (ValueNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return substitution;
+    }
+}
@@ -0,0 +1,244 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.model.QueryFingerprint;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+/**
+ * Cache de résultats placé devant n'importe quel {@link RDFStorage}.
+ *
+ * Les réponses de {@link #match(StarQuery)} sont gardées, déjà matérialisées, sous l'empreinte canonique
+ * de la requête ({@link StarQuery#getFingerprint()}). Le label, l'ordre des atomes et le nom des variables
+ * sont ignorés : une requête qui ne diffère que par le nom de ses variables est servie par le cache,
+ * ses réponses étant renommées variable par variable.
+ * Les entrées les moins récemment utilisées sont évincées dès que le nombre d'entrées ou la taille estimée
+ * du cache dépasse sa borne. Tout ajout effectif dans le store vide le cache.
+ *
+ * Les méthodes sont sûres entre threads ; la requête d'un défaut de cache est exécutée hors du verrou.
+ * Ses réponses ne sont pas gardées si le cache a été vidé pendant son exécution : elles peuvent dater d'avant l'ajout.
+ */
+public class CachingRDFStorage implements RDFStorage {
+    // Estimation grossière de l'empreinte d'une entrée, d'une substitution et d'une liaison variable -> terme
+    private static final long ENTRY_BYTES = 128;
+    private static final long SUBSTITUTION_BYTES = 48;
+    private static final long BINDING_BYTES = 32;
+
+    private final RDFStorage delegate;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<QueryFingerprint, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    // Incrémentée par `clear` : une réponse calculée avant le dernier vidage n'est pas gardée
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param delegate   le store interrogé en cas de défaut de cache
+     * @param maxEntries nombre maximal d'entrées (au moins 1)
+     * @param maxBytes   taille estimée maximale du cache, en octets (au moins 1)
+     */
+    public CachingRDFStorage(RDFStorage delegate, int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Les bornes du cache doivent être positives : " + maxEntries + ", " + maxBytes);
+        }
+        this.delegate = Objects.requireNonNull(delegate, "Le store ne peut pas être null.");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Cache borné uniquement par son nombre d'entrées.
+     */
+    public CachingRDFStorage(RDFStorage delegate, int maxEntries) {
+        this(delegate, maxEntries, Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean add(RDFAtom a) {
+        boolean added = delegate.add(a);
+        if (added) {
+            clear();
+        }
+        return added;
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom a) {
+        return delegate.match(a);
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        QueryFingerprint key = q.getFingerprint();
+        CachedResult cached;
+        long startGeneration;
+        synchronized (this) {
+            startGeneration = generation;
+            cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (cached != null) {
+            return cached.variables.equals(q.getCanonicalVariables())
+                    ? cached.substitutions.iterator()
+                    : rename(cached, q.getCanonicalVariables()).iterator();
+        }
+
+        List<Substitution> substitutions = new ArrayList<>();
+        delegate.match(q).forEachRemaining(substitutions::add);
+        CachedResult result = new CachedResult(Collections.unmodifiableList(substitutions), q.getCanonicalVariables(),
+                estimateBytes(substitutions));
+        if (result.bytes <= maxBytes) {
+            put(key, result, startGeneration);
+        }
+        return result.substitutions.iterator();
+    }
+
+    /**
+     * Compte depuis le cache si la requête y est, sinon délègue le comptage
+     * sans garder de réponse : le store n'a pas à construire les substitutions.
+     */
+    @Override
+    public long count(StarQuery q) {
+        synchronized (this) {
+            CachedResult cached = entries.get(q.getFingerprint());
+            if (cached != null) {
+                hits++;
+                return cached.substitutions.size();
+            }
+            misses++;
+        }
+        return delegate.count(q);
+    }
+
+    @Override
+    public long size() {
+        return delegate.size();
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        return delegate.getAtoms();
+    }
+
+    /**
+     * Vide le cache, sans toucher aux compteurs.
+     * À appeler si le store délégué est modifié sans passer par ce cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+        generation++;
+    }
+
+    /// Nombre de requêtes servies depuis le cache
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /// Nombre de requêtes transmises au store délégué
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /// Nombre d'entrées évincées pour respecter les bornes
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /// Part des requêtes servies depuis le cache, 0 si aucune requête
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /// Nombre d'entrées actuellement en cache
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /// Taille estimée du cache, en octets
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Garde les réponses d'un défaut de cache, sauf si le cache a été vidé depuis le début de la requête.
+     *
+     * @param startGeneration la valeur de `generation` lue avant d'interroger le store délégué
+     */
+    private synchronized void put(QueryFingerprint key, CachedResult result, long startGeneration) {
+        if (generation != startGeneration) {
+            return;
+        }
+        // Deux défauts simultanés sur la même requête : la seconde réponse remplace la première
+        CachedResult previous = entries.put(key, result);
+        if (previous != null) {
+            bytes -= previous.bytes;
+        }
+        bytes += result.bytes;
+
+        Iterator<CachedResult> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Renomme les réponses gardées vers les variables d'une requête de même forme canonique :
+     * la i-ème variable canonique de la requête d'origine devient la i-ème de la nouvelle.
+     */
+    private static List<Substitution> rename(CachedResult cached, List<Variable> variables) {
+        Map<Variable, Variable> renaming = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            renaming.put(cached.variables.get(i), variables.get(i));
+        }
+        List<Substitution> renamed = new ArrayList<>(cached.substitutions.size());
+        for (Substitution substitution : cached.substitutions) {
+            Substitution copy = new SubstitutionImpl();
+            for (Variable variable : substitution.keys()) {
+                copy.add(renaming.getOrDefault(variable, variable), substitution.createImageOf(variable));
+            }
+            renamed.add(copy);
+        }
+        return renamed;
+    }
+
+    private static long estimateBytes(List<Substitution> substitutions) {
+        long estimate = ENTRY_BYTES;
+        for (Substitution substitution : substitutions) {
+            estimate += SUBSTITUTION_BYTES + BINDING_BYTES * substitution.keys().size();
+        }
+        return estimate;
+    }
+
+    /**
+     * Réponses matérialisées d'une requête, ses variables dans l'ordre canonique et leur taille estimée.
+     */
+    private static final class CachedResult {
+        private final List<Substitution> substitutions;
+        private final List<Variable> variables;
+        private final long bytes;
+
+        CachedResult(List<Substitution> substitutions, List<Variable> variables, long bytes) {
+            this.substitutions = substitutions;
+            this.variables = variables;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package qengine.storage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.UnaryOperator;
+
+/**
+ * Filtre une liste triée de candidats de la variable centrale par tranches, en fork/join.
+ *
+ * Chaque filtre correspond à un atome restant de la requête : il reçoit une liste triée
+ * et rend la sous-liste des candidats qui vérifient l'atome. Les tranches étant des plages
+ * contiguës de la liste triée, la concaténation des résultats partiels reste triée.
+ */
+final class CandidateFilterTask extends RecursiveTask<int[]> {
+    private final int[] candidates;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+    private final List<UnaryOperator<int[]>> filters;
+
+    CandidateFilterTask(int[] candidates, int from, int to, int chunkSize, List<UnaryOperator<int[]>> filters) {
+        this.candidates = candidates;
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.filters = filters;
+    }
+
+    @Override
+    protected int[] compute() {
+        if (to - from <= chunkSize) {
+            int[] result = Arrays.copyOfRange(candidates, from, to);
+            for (UnaryOperator<int[]> filter : filters) {
+                if (result.length == 0) {break;}
+                result = filter.apply(result);
+            }
+            return result;
+        }
+
+        int middle = (from + to) >>> 1;
+        CandidateFilterTask left = new CandidateFilterTask(candidates, from, middle, chunkSize, filters);
+        CandidateFilterTask right = new CandidateFilterTask(candidates, middle, to, chunkSize, filters);
+        left.fork();
+        int[] rightResult = right.compute();
+        int[] leftResult = left.join();
+
+        int[] merged = Arrays.copyOf(leftResult, leftResult.length + rightResult.length);
+        System.arraycopy(rightResult, 0, merged, leftResult.length, rightResult.length);
+        return merged;
+    }
+}
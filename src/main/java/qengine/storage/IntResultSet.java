@@ -0,0 +1,150 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.exceptions.ValueNotFoundException;
+import qengine.model.Dictionnary;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Réponses d'une requête sous forme de lignes de codes du dictionnaire (matérialisation tardive).
+ *
+ * Chaque ligne associe un code à chaque variable de {@link #getVariables()}, dans cet ordre ;
+ * les lignes sont rangées bout à bout dans un seul tableau. Les termes ne sont décodés
+ * par le {@link Dictionnary} que sur demande ({@link Cursor#getTerm(int)}, {@link #toSubstitutions()}) :
+ * compter, comparer ou joindre des réponses ne construit aucun objet par ligne.
+ * Le code -1 désigne une variable non liée dans la ligne.
+ */
+public final class IntResultSet {
+    private final List<Variable> variables;
+    private final int[] codes;
+    private final int rowCount;
+    private final Dictionnary dictionnary;
+
+    /**
+     * @param variables   les variables, une colonne chacune
+     * @param codes       les lignes bout à bout (au moins {@code rowCount * variables.size()} codes, non modifiés ensuite)
+     * @param rowCount    le nombre de lignes
+     * @param dictionnary le dictionnaire qui a encodé les codes
+     */
+    IntResultSet(List<Variable> variables, int[] codes, int rowCount, Dictionnary dictionnary) {
+        if ((long) rowCount * variables.size() > codes.length) {
+            throw new IllegalArgumentException("Pas assez de codes pour " + rowCount + " lignes de " + variables.size() + " variables.");
+        }
+        this.variables = List.copyOf(variables);
+        this.codes = codes;
+        this.rowCount = rowCount;
+        this.dictionnary = dictionnary;
+    }
+
+    /// Les variables des colonnes, dans l'ordre des codes d'une ligne
+    public List<Variable> getVariables() {
+        return variables;
+    }
+
+    /// Nombre de lignes (réponses)
+    public int size() {
+        return rowCount;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    /// Code de la colonne `column` de la ligne `row`
+    public int getCode(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        return codes[row * variables.size() + column];
+    }
+
+    /**
+     * @return un curseur placé avant la première ligne
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Décode les lignes à la demande, une substitution par ligne.
+     *
+     * @return un itérateur de substitutions, dans l'ordre des lignes
+     */
+    public Iterator<Substitution> toSubstitutions() {
+        Cursor cursor = cursor();
+        return new Iterator<>() {
+            private boolean ready = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    ready = cursor.next();
+                }
+                return ready;
+            }
+
+            @Override
+            public Substitution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return cursor.toSubstitution();
+            }
+        };
+    }
+
+    /**
+     * Curseur sur les lignes, sans allocation : {@link #next()} avance d'une ligne
+     * et les codes de la ligne courante sont lus colonne par colonne.
+     */
+    public final class Cursor {
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Passe à la ligne suivante.
+         *
+         * @return false s'il n'y a plus de ligne
+         */
+        public boolean next() {
+            if (row < rowCount) {
+                row++;
+            }
+            return row < rowCount;
+        }
+
+        /// Code de la colonne `column` de la ligne courante
+        public int getCode(int column) {
+            return IntResultSet.this.getCode(row, column);
+        }
+
+        /// Terme de la colonne `column` de la ligne courante, décodé par le dictionnaire
+        public Term getTerm(int column) {
+            try {
+                return dictionnary.getValue(getCode(column));
+            } catch (ValueNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /// Substitution de la ligne courante, variables non liées exclues
+        public Substitution toSubstitution() {
+            Substitution substitution = new SubstitutionImpl();
+            for (int column = 0; column < variables.size(); column++) {
+                if (getCode(column) != -1) {
+                    substitution.add(variables.get(column), getTerm(column));
+                }
+            }
+            return substitution;
+        }
+    }
+}
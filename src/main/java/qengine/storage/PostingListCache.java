@@ -0,0 +1,178 @@
+package qengine.storage;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache partagé entre requêtes des listes de candidats de la variable centrale d'un atome.
+ *
+ * Une entrée est la liste triée des codes lue dans l'index pour un motif (position de la variable
+ * centrale, codes des deux constantes), par exemple {@code ?v0 rdf:type wsdbm:Role2}.
+ * Les listes trop courtes ne sont pas gardées : les relire ne coûte qu'une recherche dans l'index.
+ *
+ * L'éviction suit GreedyDual-Size-Frequency : la priorité d'une entrée vaut l'âge du cache
+ * plus sa fréquence d'utilisation multipliée par sa longueur, ce qui favorise les grandes listes
+ * souvent réutilisées. Quand le nombre total de codes gardés dépasse la capacité, les entrées
+ * de plus faible priorité sont retirées et l'âge prend la priorité de la dernière retirée :
+ * les entrées qui ne servent plus finissent par passer sous les nouvelles.
+ * Les priorités ne font que croître : la file de priorité garde pour chaque entrée la priorité
+ * qu'elle avait à son insertion, une borne inférieure, et une entrée réutilisée depuis n'y est remise
+ * à sa priorité actuelle que lorsqu'elle arrive en tête. Une éviction coûte donc O(log n).
+ *
+ * Les listes rendues sont partagées et ne doivent pas être modifiées.
+ * Les méthodes sont sûres entre threads : une liste présente est rendue sans verrou,
+ * seuls l'ajout et l'éviction le prennent ; la lecture d'une liste absente se fait hors du verrou.
+ */
+public final class PostingListCache {
+    private final long capacity;
+    private final int minLength;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Une place par entrée, triée par priorité connue à l'insertion dans la file (modifiée sous le verrou)
+    private final PriorityQueue<Ranked> byPriority = new PriorityQueue<>();
+    private long cachedIdentifiers = 0;
+    private volatile double age = 0;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long evictions = 0;
+
+    /**
+     * @param capacity  nombre maximal de codes gardés, toutes listes confondues
+     * @param minLength longueur minimale d'une liste pour être gardée
+     */
+    public PostingListCache(long capacity, int minLength) {
+        if (capacity < 1 || minLength < 0) {
+            throw new IllegalArgumentException("Paramètres du cache invalides : " + capacity + ", " + minLength);
+        }
+        this.capacity = capacity;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Rend la liste du motif depuis le cache, ou la lit avec {@code loader} et la garde si elle est assez longue.
+     *
+     * @param position position de la variable centrale dans l'atome (0, 1 ou 2)
+     * @param first    code de la première constante de l'atome
+     * @param second   code de la seconde constante de l'atome
+     * @param loader   lecture de la liste dans l'index
+     * @return la liste triée des candidats, partagée
+     */
+    public int[] get(int position, int first, int second, Supplier<int[]> loader) {
+        long key = key(position, first, second);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+            entry.priority = age + (double) entry.frequency.incrementAndGet() * entry.list.length;
+            return entry.list;
+        }
+        misses.increment();
+
+        int[] list = loader.get();
+        if (list.length >= minLength && list.length <= capacity) {
+            put(key, list);
+        }
+        return list;
+    }
+
+    /// Vide le cache, sans toucher aux compteurs
+    public synchronized void clear() {
+        entries.clear();
+        byPriority.clear();
+        cachedIdentifiers = 0;
+        age = 0;
+    }
+
+    /// Nombre de listes servies depuis le cache
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /// Nombre de listes lues dans l'index
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /// Nombre de listes évincées pour respecter la capacité
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /// Nombre de listes actuellement en cache
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /// Nombre de codes actuellement en cache
+    public synchronized long getCachedIdentifiers() {
+        return cachedIdentifiers;
+    }
+
+    private synchronized void put(long key, int[] list) {
+        Entry entry = new Entry(list, age + list.length);
+        // Deux lectures simultanées du même motif : la première gardée suffit
+        if (entries.putIfAbsent(key, entry) != null) {
+            return;
+        }
+        byPriority.add(new Ranked(key, entry, entry.priority));
+        cachedIdentifiers += list.length;
+        if (cachedIdentifiers > capacity) {
+            evict();
+        }
+    }
+
+    /// Retire les entrées de plus faible priorité jusqu'à repasser sous la capacité (la nouvelle entrée comprise)
+    private void evict() {
+        while (cachedIdentifiers > capacity) {
+            Ranked victim = byPriority.poll();
+            double priority = victim.entry.priority;
+            if (priority > victim.priority) {
+                // Réutilisée depuis son insertion dans la file : elle y reprend place à sa priorité actuelle
+                byPriority.add(new Ranked(victim.key, victim.entry, priority));
+                continue;
+            }
+            entries.remove(victim.key);
+            cachedIdentifiers -= victim.entry.list.length;
+            age = priority;
+            evictions++;
+        }
+    }
+
+    /// Position sur 2 bits, puis les deux codes (positifs) sur 31 bits chacun
+    private static long key(int position, int first, int second) {
+        return (long) position << 62 | (long) first << 31 | second;
+    }
+
+    private static final class Entry {
+        private final int[] list;
+        private final AtomicLong frequency = new AtomicLong(1);
+        // Écrite sans verrou à chaque utilisation : deux utilisations simultanées peuvent n'en compter qu'une
+        private volatile double priority;
+
+        Entry(int[] list, double priority) {
+            this.list = list;
+            this.priority = priority;
+        }
+    }
+
+    /// Place d'une entrée dans la file de priorité, avec la priorité qu'elle avait en y entrant
+    private static final class Ranked implements Comparable<Ranked> {
+        private final long key;
+        private final Entry entry;
+        private final double priority;
+
+        Ranked(long key, Entry entry, double priority) {
+            this.key = key;
+            this.entry = entry;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            return Double.compare(priority, other.priority);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package qengine.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Opérations sur des listes triées d'identifiants du dictionnaire (listes de candidats).
+ * Toutes les listes manipulées sont triées par ordre croissant et sans doublon.
+ */
+public final class PostingLists {
+    private static final int[] EMPTY = new int[0];
+
+    // Au-delà de ce rapport de tailles, la recherche exponentielle bat la fusion linéaire
+    private static final int GALLOPING_RATIO = 16;
+
+    private PostingLists() {
+    }
+
+    /**
+     * Intersecte un ensemble de listes, de la plus courte à la plus longue,
+     * en s'arrêtant dès que le résultat intermédiaire est vide.
+     *
+     * @param lists les listes triées à intersecter
+     * @return l'intersection, triée
+     */
+    public static int[] intersectAll(List<int[]> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[][] sorted = lists.toArray(new int[0][]);
+        Arrays.sort(sorted, Comparator.comparingInt(list -> list.length));
+
+        int[] result = sorted[0];
+        for (int i = 1; i < sorted.length && result.length > 0; i++) {
+            result = intersect(result, sorted[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Intersecte deux listes triées.
+     * Fusion linéaire si les tailles sont proches, recherche exponentielle (galloping)
+     * de la petite liste dans la grande sinon.
+     *
+     * @return l'intersection, triée
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return EMPTY;
+        }
+        return (long) a.length * GALLOPING_RATIO < b.length ? gallop(a, b) : merge(a, b);
+    }
+
+    private static int[] merge(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                result[size++] = small[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] gallop(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int size = 0;
+        int from = 0;
+        for (int value : small) {
+            int position = gallopTo(large, from, value);
+            if (position >= large.length) {
+                break;
+            }
+            if (large[position] == value) {
+                result[size++] = value;
+                position++;
+            }
+            from = position;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Renvoie la première position de {@code list}, à partir de {@code from},
+     * dont la valeur est supérieure ou égale à {@code value} (ou {@code list.length}).
+     * Les bornes sont doublées jusqu'à encadrer la valeur, puis affinées par dichotomie.
+     */
+    static int gallopTo(int[] list, int from, int value) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < list.length && list[high] < value) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, list.length);
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (list[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -9,45 +9,258 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qengine.exceptions.ValueNotFoundException;
 import qengine.model.Dictionnary;
+import qengine.model.FrozenIndex;
 import qengine.model.Index;
+import qengine.model.IntIndex;
+import qengine.model.IntTripleBuffer;
+import qengine.model.MappedIndex;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Implémentation d'un HexaStore pour stocker des RDFAtom.
  * Cette classe utilise six index pour optimiser les recherches.
  * Les index sont basés sur les combinaisons (Sujet, Prédicat, Objet), (Sujet, Objet, Prédicat),
  * (Prédicat, Sujet, Objet), (Prédicat, Objet, Sujet), (Objet, Sujet, Prédicat) et (Objet, Prédicat, Sujet).
+ * Une fois le chargement terminé, les méthodes {@code match} ne font que des lectures
+ * et peuvent être appelées depuis plusieurs threads (voir {@link qengine.program.ParallelQueryExecutor}).
  */
 public class RDFHexaStore implements RDFStorage {
     private static final Logger log = LoggerFactory.getLogger(RDFHexaStore.class);
-    private final Dictionnary dictionnary = new Dictionnary();
-    private final Set<RDFAtom> rdfAtoms = new HashSet<>();
-    private final Index OPS;
-    private final Index OSP;
-    private final Index POS;
-    private final Index PSO;
-    private final Index SOP;
-    private final Index SPO;
-    private final Map<String, Index> permutationMap;
+    private final Dictionnary dictionnary;
+    private Index OPS;
+    private Index OSP;
+    private Index POS;
+    private Index PSO;
+    private Index SOP;
+    private Index SPO;
+    private boolean frozen = false;
+    private final StarQueryPlanner planner = new StarQueryPlanner(this::cardinality);
+
+    // Au-delà de ce rapport entre la cardinalité d'un atome et le nombre de candidats restants,
+    // on vérifie chaque candidat dans l'index plutôt que de lire toute la liste de l'atome
+    private static final int PROBE_RATIO = 32;
+
+    // Nombre de triplets chargés par `ingest` à partir duquel les permutations sont construites en parallèle
+    private static final int PARALLEL_BUILD_THRESHOLD = 1 << 16;
+
+    // En-tête des instantanés binaires ("QENG")
+    private static final int SNAPSHOT_MAGIC = 0x51454E47;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Taille minimale d'une tranche de candidats traitée par une tâche fork/join
+    private static final int MIN_CHUNK_SIZE = 4096;
+    // Nombre de candidats à partir duquel une requête en étoile est évaluée en parallèle (voir `setParallelThreshold`)
+    private int parallelThreshold = 65_536;
+    // Listes de candidats partagées entre requêtes, consultées une fois le store figé (4 Mi codes, listes d'au moins 64)
+    private PostingListCache postingListCache = new PostingListCache(1 << 22, 64);
+
+    // Position du sujet, du prédicat et de l'objet dans les triplets de chaque index
+    private static final int[] SPO_POSITIONS = {0, 1, 2};
+    private static final int[] SOP_POSITIONS = {0, 2, 1};
+    private static final int[] POS_POSITIONS = {2, 0, 1};
+    private static final int[] PSO_POSITIONS = {1, 0, 2};
+    private static final int[] OPS_POSITIONS = {2, 1, 0};
 
     public RDFHexaStore() {
-        this.OPS = new Index();
-        this.OSP = new Index();
-        this.POS = new Index();
-        this.PSO = new Index();
-        this.SOP = new Index();
-        this.SPO = new Index();
-
-        this.permutationMap = Map.of(
-                "OPS", this.OPS,
-                "OSP", this.OSP,
-                "POS", this.POS,
-                "PSO", this.PSO,
-                "SOP", this.SOP
-        );
+        this(IntIndex::new);
+    }
+
+    /**
+     * Construit un HexaStore dont les six index sont créés par la fabrique donnée.
+     *
+     * @param indexFactory fabrique d'index (ex. {@code IntIndex::new}, {@code HashMapIndex::new})
+     */
+    public RDFHexaStore(Supplier<Index> indexFactory) {
+        this.dictionnary = new Dictionnary();
+        this.OPS = indexFactory.get();
+        this.OSP = indexFactory.get();
+        this.POS = indexFactory.get();
+        this.PSO = indexFactory.get();
+        this.SOP = indexFactory.get();
+        this.SPO = indexFactory.get();
+    }
+
+    /**
+     * Construit un store figé à partir d'un dictionnaire déjà encodé et de ses six index figés.
+     */
+    private RDFHexaStore(Dictionnary dictionnary, Index SPO, Index SOP, Index PSO, Index POS, Index OSP, Index OPS) {
+        this.dictionnary = dictionnary;
+        this.SPO = SPO;
+        this.SOP = SOP;
+        this.PSO = PSO;
+        this.POS = POS;
+        this.OSP = OSP;
+        this.OPS = OPS;
+        this.frozen = true;
+    }
+
+    /**
+     * Fige les six index au format CSR une fois le chargement terminé.
+     * Les index ne sont convertis qu'un par un pour limiter le pic mémoire,
+     * puis le dictionnaire est compacté hors du tas (voir {@link Dictionnary#compact()}).
+     * Après cet appel, le store est en lecture seule.
+     */
+    public void freeze() {
+        freeze(FrozenIndex::of);
+    }
+
+    /**
+     * Fige les six index avec le format donné, par exemple {@code CompressedIndex::of}
+     * pour des feuilles compressées en varint.
+     *
+     * @param freezer conversion appliquée à chaque index
+     */
+    public void freeze(UnaryOperator<Index> freezer) {
+        if (frozen) {return;}
+        this.OPS = freezer.apply(this.OPS);
+        this.OSP = freezer.apply(this.OSP);
+        this.POS = freezer.apply(this.POS);
+        this.PSO = freezer.apply(this.PSO);
+        this.SOP = freezer.apply(this.SOP);
+        this.SPO = freezer.apply(this.SPO);
+        this.dictionnary.compact();
+        this.frozen = true;
+    }
+
+    /**
+     * Enregistre le store dans un instantané binaire, relu par {@link #load(Path)}.
+     * Le store est figé au préalable s'il ne l'est pas déjà.
+     *
+     * Format (entiers big-endian) : l'en-tête ({@code SNAPSHOT_MAGIC}, {@code SNAPSHOT_VERSION}),
+     * les six index figés dans l'ordre SPO, SOP, PSO, POS, OSP, OPS (voir {@link FrozenIndex#writeTo}),
+     * puis le dictionnaire (voir {@link Dictionnary#writeTo}).
+     *
+     * @param path fichier de l'instantané (écrasé s'il existe)
+     */
+    public void save(Path path) throws IOException {
+        freeze();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            for (Index index : List.of(SPO, SOP, PSO, POS, OSP, OPS)) {
+                FrozenIndex.of(index).writeTo(out);
+            }
+            dictionnary.writeTo(out);
+        }
+    }
+
+    /**
+     * Charge un store depuis un instantané écrit par {@link #save(Path)}, sans reparser de N-Triples.
+     *
+     * @param path fichier de l'instantané
+     * @return un store figé, prêt à être interrogé
+     * @throws IOException si le fichier est illisible ou n'est pas un instantané de cette version
+     */
+    public static RDFHexaStore load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Le fichier n'est pas un instantané d'hexastore : " + path);
+            }
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Version d'instantané non supportée : " + version);
+            }
+            Index SPO = FrozenIndex.readFrom(in);
+            Index SOP = FrozenIndex.readFrom(in);
+            Index PSO = FrozenIndex.readFrom(in);
+            Index POS = FrozenIndex.readFrom(in);
+            Index OSP = FrozenIndex.readFrom(in);
+            Index OPS = FrozenIndex.readFrom(in);
+            return new RDFHexaStore(Dictionnary.readFrom(in), SPO, SOP, PSO, POS, OSP, OPS);
+        }
+    }
+
+    /**
+     * Ouvre un instantané écrit par {@link #save(Path)} en projetant ses six index en mémoire.
+     * Les index restent hors du tas Java, dans les pages du fichier chargées à la demande par le système :
+     * le jeu de données peut dépasser -Xmx. Seul le dictionnaire est relu sur le tas.
+     *
+     * @param path fichier de l'instantané
+     * @return un store figé dont les index sont des {@link MappedIndex}
+     * @throws IOException si le fichier est illisible ou n'est pas un instantané de cette version
+     */
+    public static RDFHexaStore map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 2 * Integer.BYTES);
+            if (header.getInt(0) != SNAPSHOT_MAGIC) {
+                throw new IOException("Le fichier n'est pas un instantané d'hexastore : " + path);
+            }
+            if (header.getInt(Integer.BYTES) != SNAPSHOT_VERSION) {
+                throw new IOException("Version d'instantané non supportée : " + header.getInt(Integer.BYTES));
+            }
+
+            MappedIndex[] indexes = new MappedIndex[6];
+            long position = 2 * Integer.BYTES;
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = MappedIndex.map(channel, position);
+                position = indexes[i].end();
+            }
+
+            channel.position(position);
+            Dictionnary dictionnary = Dictionnary.readFrom(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16)));
+            return new RDFHexaStore(dictionnary, indexes[0], indexes[1], indexes[2], indexes[3], indexes[4], indexes[5]);
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Fixe le nombre de candidats à partir duquel une requête en étoile est évaluée en parallèle :
+     * les candidats du premier atome sont découpés en tranches vérifiées sur le pool fork/join commun.
+     * En dessous, la requête reste évaluée sur le thread appelant.
+     *
+     * @param parallelThreshold seuil en nombre de candidats ({@link Integer#MAX_VALUE} pour désactiver)
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Le seuil doit être strictement positif : " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Remplace le cache des listes de candidats, par exemple pour le partager entre plusieurs stores
+     * d'un même jeu de données ou en changer la capacité. Le cache n'est consulté qu'une fois le store figé.
+     *
+     * @param postingListCache le cache à utiliser, ou null pour le désactiver
+     */
+    public void setPostingListCache(PostingListCache postingListCache) {
+        this.postingListCache = postingListCache;
+    }
+
+    public PostingListCache getPostingListCache() {
+        return postingListCache;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Le store est figé, il ne peut plus être modifié.");
+        }
     }
 
     // Effectue les permutations nécessaires pour constuire l'index.
@@ -69,7 +282,19 @@ public class RDFHexaStore implements RDFStorage {
     * Créer le codex du dictionnaire.
     **/
     public void dico_createCodex() {
-        this.dictionnary.createCodex();
+        dico_createCodex(false);
+    }
+
+    /**
+    * Créer le codex du dictionnaire, en attribuant les plus petites clés
+    * aux termes les plus fréquents si {@code frequencyOrdered}.
+    **/
+    public void dico_createCodex(boolean frequencyOrdered) {
+        if (frequencyOrdered) {
+            this.dictionnary.createFrequencyOrderedCodex();
+        } else {
+            this.dictionnary.createCodex();
+        }
         this.dictionnary.initializeKeyMap();
     }
 
@@ -81,45 +306,50 @@ public class RDFHexaStore implements RDFStorage {
         Arrays.stream(terms).forEach(dictionnary::addTerm);
     }
 
+    /**
+     * Compte en parallèle les termes de tous les atomes, à la place d'un {@link #add_to_dico(Term[])} par atome.
+     * Les clés obtenues ensuite par {@link #dico_createCodex(boolean)} sont les mêmes.
+     *
+     * @param atoms les atomes dont les termes sont ajoutés au dictionnaire
+     */
+    public void add_to_dico_parallel(List<RDFAtom> atoms) {
+        dictionnary.addTermsInParallel(atoms);
+    }
+
     /**
      * Ajoute un RDFAtom dans le store.
+     * Un terme absent du dictionnaire reçoit une nouvelle clé, à la suite de celles du codex
+     * (voir {@link Dictionnary#getOrCreateKey(Term)}) : pas besoin de reconstruire le store.
      *
      * @param atom le RDFAtom à ajouter
      * @return true si le RDFAtom a été ajouté avec succès, false s'il est déjà présent
+     * @throws IllegalArgumentException si l'atome contient une variable
      */
     @Override
     public boolean add(RDFAtom atom) {
-        if (!rdfAtoms.add(atom)) {return false;}
-        int[] atomEncoder = dico_encodeTriplet(atom);
-
+        checkNotFrozen();
+        int[] atomEncoder = new int[3];
         for (int i = 0; i < atomEncoder.length; i++) {
+            atomEncoder[i] = dictionnary.getOrCreateKey(atom.getTerm(i));
             if (atomEncoder[i] == -1) {
-                throw new RuntimeException("Key not found: " + atom.getTerm(i));
+                throw new IllegalArgumentException("Un atome ajouté ne doit contenir que des constantes : " + atom);
             }
         }
 
-        for (Map.Entry<String, Index> entry : permutationMap.entrySet()) {
-            entry.getValue().ajoutTriplet(permuteTriplet(atomEncoder, entry.getKey()));
-        }
-
-        this.SPO.ajoutTriplet(atomEncoder);
-        return true;
+        return insertTriplet(atomEncoder[0], atomEncoder[1], atomEncoder[2], false);
     }
 
     /**
      * Ajoute une List<RDFAtom> dans le store.
+     * Les atomes dont un terme est absent du dictionnaire sont ignorés.
      *
      * @param atoms une List<RDFAtom> à ajouter
      */
     public void addAll(List<RDFAtom> atoms, boolean SPO_Only) {
-        List<int[]> encodedAtoms = new ArrayList<>();
-        List<RDFAtom> validAtoms = new ArrayList<>();
-
+        checkNotFrozen();
         for (RDFAtom atom : atoms) {
-            if (rdfAtoms.contains(atom)) continue;
-
             int[] atomEncoder = dico_encodeTriplet(atom);
-            boolean isValid = true;
+            boolean isValid = atomEncoder.length == 3;
             for (int j : atomEncoder) {
                 if (j == -1) {
                     isValid = false;
@@ -128,20 +358,225 @@ public class RDFHexaStore implements RDFStorage {
             }
 
             if (isValid) {
-                validAtoms.add(atom);
-                encodedAtoms.add(atomEncoder);
+                insertTriplet(atomEncoder[0], atomEncoder[1], atomEncoder[2], SPO_Only);
             }
         }
-        rdfAtoms.addAll(validAtoms);
+    }
 
-        for (int[] atomEncoder : encodedAtoms) {
-            if(!SPO_Only){
-                for (Map.Entry<String, Index> entry : permutationMap.entrySet()) {
-                    entry.getValue().ajoutTriplet(permuteTriplet(atomEncoder, entry.getKey()));
-                }
+    /**
+     * Chargement en une passe : chaque atome du flux est encodé à la volée (un terme nouveau reçoit
+     * la prochaine clé libre du dictionnaire) et ajouté à un tampon compact de triplets encodés,
+     * qui est ensuite inséré dans les index. Le flux n'est parcouru qu'une fois et n'est jamais
+     * matérialisé : avec {@link qengine.parser.RDFAtomParser#getRDFAtoms()}, la mémoire du chargement
+     * est proportionnelle aux données encodées.
+     *
+     * Remplace la séquence {@link #add_to_dico(Term[])}, {@link #dico_createCodex()}, {@link #addAll(List, boolean)}.
+     *
+     * @param atoms les atomes à charger
+     * @return le nombre de triplets ajoutés (hors doublons)
+     */
+    public int ingest(Stream<RDFAtom> atoms) {
+        return ingest(atoms, false);
+    }
+
+    /**
+     * Chargement en une passe, avec en option la renumérotation du dictionnaire par fréquence :
+     * une fois le flux encodé, les occurrences de chaque clé sont comptées dans le tampon,
+     * les clés sont réattribuées par fréquence décroissante et le tampon est réécrit avant l'insertion.
+     * Les identifiants fréquents sont alors petits, ce qui profite à {@link qengine.model.CompressedIndex}.
+     *
+     * La renumérotation invalide les clés déjà attribuées : elle n'est possible que sur un store vide.
+     *
+     * @param atoms            les atomes à charger
+     * @param frequencyOrdered réattribuer les clés par fréquence décroissante
+     * @return le nombre de triplets ajoutés (hors doublons)
+     */
+    public int ingest(Stream<RDFAtom> atoms, boolean frequencyOrdered) {
+        checkNotFrozen();
+        if (frequencyOrdered && SPO.size() > 0) {
+            throw new IllegalStateException("La renumérotation par fréquence n'est possible que sur un store vide.");
+        }
+        IntTripleBuffer buffer = encodeAll(atoms, frequencyOrdered);
+        if (buffer.size() >= PARALLEL_BUILD_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return addEncodedInParallel(buffer);
+        }
+        return addEncoded(buffer);
+    }
+
+    /**
+     * Chargement en masse d'un store vide : les atomes sont encodés comme par {@link #ingest(Stream, boolean)},
+     * puis chaque permutation est construite directement au format figé par un tri par base
+     * ({@link FrozenIndex#sortedOf}), sans index intermédiaire. Le store est figé à la fin du chargement.
+     *
+     * @param atoms            les atomes à charger
+     * @param frequencyOrdered réattribuer les clés par fréquence décroissante
+     * @return le nombre de triplets du store (hors doublons)
+     */
+    public int bulkLoad(Stream<RDFAtom> atoms, boolean frequencyOrdered) {
+        checkNotFrozen();
+        if (SPO.size() > 0) {
+            throw new IllegalStateException("Le chargement en masse n'est possible que sur un store vide.");
+        }
+        return bulkLoadEncoded(encodeAll(atoms, frequencyOrdered));
+    }
+
+    /**
+     * Construit les six permutations figées d'un store vide à partir de triplets déjà encodés :
+     * un tri par base par permutation, les six tris étant lancés en parallèle sur le pool commun.
+     * Le store est figé à la fin du chargement.
+     *
+     * @param buffer les triplets encodés avec le dictionnaire de ce store
+     * @return le nombre de triplets du store (hors doublons)
+     */
+    public int bulkLoadEncoded(IntTripleBuffer buffer) {
+        checkNotFrozen();
+        if (SPO.size() > 0) {
+            throw new IllegalStateException("Le chargement en masse n'est possible que sur un store vide.");
+        }
+        List<FrozenIndex> indexes = buildInParallel(List.of(
+                () -> FrozenIndex.sortedOf(buffer, 0, 1, 2),
+                () -> FrozenIndex.sortedOf(buffer, 0, 2, 1),
+                () -> FrozenIndex.sortedOf(buffer, 1, 0, 2),
+                () -> FrozenIndex.sortedOf(buffer, 1, 2, 0),
+                () -> FrozenIndex.sortedOf(buffer, 2, 0, 1),
+                () -> FrozenIndex.sortedOf(buffer, 2, 1, 0)
+        ));
+        this.SPO = indexes.get(0);
+        this.SOP = indexes.get(1);
+        this.PSO = indexes.get(2);
+        this.POS = indexes.get(3);
+        this.OSP = indexes.get(4);
+        this.OPS = indexes.get(5);
+        this.dictionnary.compact();
+        this.frozen = true;
+        return SPO.size();
+    }
+
+    /**
+     * Encode un flux d'atomes dans un tampon compact, en attribuant leurs clés aux termes nouveaux,
+     * avec en option la renumérotation du dictionnaire par fréquence décroissante.
+     */
+    private IntTripleBuffer encodeAll(Stream<RDFAtom> atoms, boolean frequencyOrdered) {
+        IntTripleBuffer buffer = new IntTripleBuffer();
+        atoms.forEachOrdered(atom -> {
+            int s = dictionnary.getOrAddKey(atom.getTripleSubject());
+            int p = dictionnary.getOrAddKey(atom.getTriplePredicate());
+            int o = dictionnary.getOrAddKey(atom.getTripleObject());
+            if (s == -1 || p == -1 || o == -1) {
+                throw new IllegalArgumentException("Un atome chargé ne doit contenir que des constantes : " + atom);
+            }
+            buffer.add(s, p, o);
+        });
+        if (frequencyOrdered) {
+            int[] counts = new int[dictionnary.size()];
+            buffer.forEachTriplet((s, p, o) -> {
+                counts[s]++;
+                counts[p]++;
+                counts[o]++;
+            });
+            buffer.remap(dictionnary.reorderByFrequency(counts));
+        }
+        return buffer;
+    }
+
+    /**
+     * Insère des triplets déjà encodés (au format SPO) dans les six index, sans doublon.
+     *
+     * @param buffer les triplets encodés avec le dictionnaire de ce store
+     * @return le nombre de triplets ajoutés (hors doublons)
+     */
+    public int addEncoded(IntTripleBuffer buffer) {
+        checkNotFrozen();
+        int added = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            if (insertTriplet(buffer.get(i, 0), buffer.get(i, 1), buffer.get(i, 2), false)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Variante parallèle de {@link #addEncoded(IntTripleBuffer)}. Les doublons sont écartés une seule fois,
+     * en insérant d'abord dans SPO, dont les feuilles (sujet, prédicat) sont courtes ; les cinq autres permutations,
+     * indépendantes, reçoivent ensuite les triplets retenus sans test d'appartenance, chacune par sa propre tâche
+     * du pool commun. Tester l'appartenance dans POS ou OPS coûterait un parcours de feuilles qui, pour un motif
+     * comme {@code rdf:type wsdbm:Role2}, contiennent des centaines de milliers de sujets.
+     *
+     * @param buffer les triplets encodés avec le dictionnaire de ce store
+     * @return le nombre de triplets ajoutés (hors doublons)
+     */
+    public int addEncodedInParallel(IntTripleBuffer buffer) {
+        checkNotFrozen();
+        BitSet retained = new BitSet(buffer.size());
+        int added = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            int[] triplet = {buffer.get(i, 0), buffer.get(i, 1), buffer.get(i, 2)};
+            if (!SPO.containsTriplet(triplet[0], triplet[1], triplet[2])) {
+                SPO.ajoutTriplet(triplet);
+                retained.set(i);
+                added++;
+            }
+        }
+        buildInParallel(List.of(
+                () -> appendPermutation(SOP, buffer, retained, 0, 2, 1),
+                () -> appendPermutation(PSO, buffer, retained, 1, 0, 2),
+                () -> appendPermutation(POS, buffer, retained, 1, 2, 0),
+                () -> appendPermutation(OSP, buffer, retained, 2, 0, 1),
+                () -> appendPermutation(OPS, buffer, retained, 2, 1, 0)
+        ));
+        return added;
+    }
+
+    /**
+     * Exécute les tâches de construction des permutations sur le pool commun
+     * et rend leurs résultats dans l'ordre des tâches.
+     */
+    private static <T> List<T> buildInParallel(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                results.add(future.get());
             }
-            this.SPO.ajoutTriplet(atomEncoder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Construction des index interrompue", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Échec de la construction d'un index", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Ajoute à un index les triplets retenus du tampon, réordonnés selon les positions données
+     * (0 sujet, 1 prédicat, 2 objet). Les doublons ont déjà été écartés : aucun test d'appartenance.
+     */
+    private static Void appendPermutation(Index index, IntTripleBuffer buffer, BitSet retained, int first, int second, int third) {
+        for (int i = retained.nextSetBit(0); i >= 0; i = retained.nextSetBit(i + 1)) {
+            index.ajoutTriplet(new int[]{buffer.get(i, first), buffer.get(i, second), buffer.get(i, third)});
         }
+        return null;
+    }
+
+    /**
+     * Insère un triplet encodé dans SPO et, sauf {@code SPO_Only}, dans les cinq autres permutations.
+     * L'unicité est vérifiée dans SPO, à la place d'un ensemble d'atomes gardé à côté des index.
+     *
+     * @return false si le triplet était déjà présent
+     */
+    private boolean insertTriplet(int s, int p, int o, boolean SPO_Only) {
+        if (SPO.containsTriplet(s, p, o)) {
+            return false;
+        }
+        SPO.ajoutTriplet(new int[]{s, p, o});
+        if (!SPO_Only) {
+            SOP.ajoutTriplet(new int[]{s, o, p});
+            PSO.ajoutTriplet(new int[]{p, s, o});
+            POS.ajoutTriplet(new int[]{p, o, s});
+            OSP.ajoutTriplet(new int[]{o, s, p});
+            OPS.ajoutTriplet(new int[]{o, p, s});
+        }
+        return true;
     }
 
     /**
@@ -151,108 +586,786 @@ public class RDFHexaStore implements RDFStorage {
      */
     @Override
     public long size() {
-        return rdfAtoms.size();
+        return SPO.size();
+    }
+
+    /**
+     * Estime le nombre de triplets correspondant à un atome, sans les parcourir.
+     * Les statistiques par (prédicat, objet), (sujet, prédicat), etc. sont lues directement
+     * dans la structure de l'index dont les constantes de l'atome forment le préfixe.
+     *
+     * @param atom RDFAtom
+     * @return le nombre de triplets dont les constantes correspondent (0 si une constante est inconnue)
+     */
+    public long cardinality(RDFAtom atom) {
+        Term[] terms = atom.getTerms();
+        int[] codes = new int[3];
+        boolean[] constant = new boolean[3];
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].isLiteral()) {
+                codes[i] = dictionnary.getKey(terms[i]);
+                if (codes[i] == -1) {return 0;}
+                constant[i] = true;
+            }
+        }
+
+        if (constant[0] && constant[1] && constant[2]) {
+            return SPO.containsTriplet(codes[0], codes[1], codes[2]) ? 1 : 0;
+        } else if (constant[0] && constant[1]) {
+            return SPO.countByTwo(codes[0], codes[1]);
+        } else if (constant[0] && constant[2]) {
+            return SOP.countByTwo(codes[0], codes[2]);
+        } else if (constant[1] && constant[2]) {
+            return POS.countByTwo(codes[1], codes[2]);
+        } else if (constant[0]) {
+            return SPO.countByOne(codes[0]);
+        } else if (constant[1]) {
+            return PSO.countByOne(codes[1]);
+        } else if (constant[2]) {
+            return OPS.countByOne(codes[2]);
+        }
+        return size();
     }
 
     /**
+     * Les substitutions sont produites paresseusement : l'index adapté aux constantes de l'atome
+     * est parcouru au fil de l'itération et les termes ne sont décodés qu'à la demande.
+     *
      * @param atom RDFAtom
      * @return un itérateur de substitutions correspondant aux match des atomes
      *          (i.e., sur quels termes s'envoient les variables)
      */
     @Override
     public Iterator<Substitution> match(RDFAtom atom) {
-        Term s = atom.getTripleSubject();
-        Term p = atom.getTriplePredicate();
-        Term o = atom.getTripleObject();
-
-        boolean s_var = s.isLiteral();
-        boolean p_var = p.isLiteral();
-        boolean o_var = o.isLiteral();
-
-        int s_code = -1;
-        int p_code = -1;
-        int o_code = -1;
-
-        if(s_var){
-            s_code = dictionnary.getKey(s);
-            if (s_code == -1) {return Collections.emptyIterator();}
-        }
-        if(p_var){
-            p_code = dictionnary.getKey(p);
-            if (p_code == -1) {return Collections.emptyIterator();}
-        }
-        if(o_var){
-            o_code = dictionnary.getKey(o);
-            if (o_code == -1) {return Collections.emptyIterator();}
-        }
-
-        List<int[]> results = new ArrayList<>();
-
-        if (s_var && p_var && o_var) {
-            //SPO
-            for (int [] result : SPO.searchByThree(s_code, p_code, o_code)) {results.add(permuteTriplet(result, "SPO"));}
-        } else if (s_var && p_var) {
-            //SP? ou PS?
-            for (int [] result : SPO.searchByTwo(s_code, p_code)) {results.add(permuteTriplet(result, "SPO"));}
-            //for (int [] result : PSO.searchByTwo(p_code, s_code)) {results.add(permuteTriplet(result, "PSO"));}
-        } else if (s_var && o_var) {
-            //SO? ou OS?
-            for (int [] result : SOP.searchByTwo(s_code, o_code)) {results.add(permuteTriplet(result, "SOP"));}
-            //for (int [] result : OSP.searchByTwo(o_code, s_code)) {results.add(permuteTriplet(result, "POS"));}
-        } else if (p_var && o_var) {
-            //PO? ou OP?
-            for (int [] result : POS.searchByTwo(p_code, o_code)) {results.add(permuteTriplet(result, "OSP"));}
-            //for (int [] result : OPS.searchByTwo(o_code, p_code)) {results.add(permuteTriplet(result, "OPS"));}
-        } else if (s_var) {
+        int[] codes = encodeConstants(atom);
+        if (codes == null) {return Collections.emptyIterator();}
+
+        boolean s_const = atom.getTripleSubject().isLiteral();
+        boolean p_const = atom.getTriplePredicate().isLiteral();
+        boolean o_const = atom.getTripleObject().isLiteral();
+
+        if (s_const && p_const && o_const) {
+            //SPO : une seule substitution (vide) si le triplet est présent
+            return SPO.containsTriplet(codes[0], codes[1], codes[2])
+                    ? List.<Substitution>of(new SubstitutionImpl()).iterator()
+                    : Collections.emptyIterator();
+        } else if (s_const && p_const) {
+            //SP?
+            return new AtomMatchIterator(dictionnary, atom, SPO.iterateByTwo(codes[0], codes[1]), SPO_POSITIONS);
+        } else if (s_const && o_const) {
+            //SO?
+            return new AtomMatchIterator(dictionnary, atom, SOP.iterateByTwo(codes[0], codes[2]), SOP_POSITIONS);
+        } else if (p_const && o_const) {
+            //PO?
+            return new AtomMatchIterator(dictionnary, atom, POS.iterateByTwo(codes[1], codes[2]), POS_POSITIONS);
+        } else if (s_const) {
             //S??
-            for (int [] result : SPO.searchByOne(s_code)){results.add(permuteTriplet(result, "SPO"));}
-            //for (int [] result : SOP.searchByOne(s_code)) {results.add(permuteTriplet(result, "SOP"));}
-        } else if (p_var) {
+            return new AtomMatchIterator(dictionnary, atom, SPO.iterateByOne(codes[0]), SPO_POSITIONS);
+        } else if (p_const) {
             //P??
-            for (int [] result : PSO.searchByOne(p_code)) {results.add(permuteTriplet(result, "PSO"));}
-            //for (int [] result : POS.searchByOne(p_code)) {results.add(permuteTriplet(result, "OSP"));}
-        } else if (o_var) {
+            return new AtomMatchIterator(dictionnary, atom, PSO.iterateByOne(codes[1]), PSO_POSITIONS);
+        } else if (o_const) {
             //O??
-            for (int [] result : OPS.searchByOne(o_code)) {results.add(permuteTriplet(result, "OPS"));}
-            //for (int [] result : OSP.searchByOne(o_code)) {results.add(permuteTriplet(result, "POS"));}
+            return new AtomMatchIterator(dictionnary, atom, OPS.iterateByOne(codes[2]), OPS_POSITIONS);
+        }
+        //??? : parcours complet de SPO
+        return new AtomMatchIterator(dictionnary, atom, SPO.iterateAll(), SPO_POSITIONS);
+    }
+
+
+    /**
+     * @param q star query
+     * @return an itérateur de subsitutions décrivrant les réponses à la requete
+     */
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        if (q.hasLimit()) {
+            return matchWithLimit(q);
+        }
+        int[] centralCodes = matchCentralCodes(q);
+        if (centralCodes != null) {
+            return decodeCentral(q.getCentralVariable(), centralCodes);
+        }
+        IntResultSet projected = matchProjected(q);
+        if (projected != null) {
+            return projected.toSubstitutions();
+        }
+        return matchBySubstitutions(q);
+    }
+
+    /**
+     * Évalue une requête en étoile sans décoder ses réponses : les lignes restent des codes du dictionnaire
+     * jusqu'à ce que l'appelant les demande (voir {@link IntResultSet}).
+     * Pour une requête dont tous les atomes ne lient que la variable centrale, le résultat a une seule colonne
+     * et reprend directement la liste triée des codes calculée sur les index. Sinon les colonnes sont
+     * {@link StarQuery#getCanonicalVariables()} et les réponses du chemin générique sont réencodées.
+     *
+     * @param q star query
+     * @return les réponses encodées, une ligne par réponse
+     */
+    public IntResultSet matchCodes(StarQuery q) {
+        List<Variable> centralColumn = List.of(q.getCentralVariable());
+        if (q.hasLimit()) {
+            PrimitiveIterator.OfInt limited = limitedCentralCodes(q);
+            if (limited != null) {
+                int[] codes = new int[(int) Math.min(q.getLimit(), 16)];
+                int size = 0;
+                while (limited.hasNext()) {
+                    if (size == codes.length) {
+                        codes = Arrays.copyOf(codes, size * 2);
+                    }
+                    codes[size++] = limited.nextInt();
+                }
+                return new IntResultSet(centralColumn, codes, size, dictionnary);
+            }
         } else {
-            //???
-            int[] array = {s_code, p_code, o_code};
-            results = new ArrayList<>();
-            results.add(array);
-        }
-
-        Set<Substitution> uniqueSubstitutions = new HashSet<>();
-        for (int[] result : results) {
-            Substitution substitution = new SubstitutionImpl();
-
-            for (int i = 0; i < result.length; i++) {
-                if (atom.getTerms()[i] instanceof Variable) {
-                    try {
-                        substitution.add((Variable) atom.getTerms()[i], dictionnary.getValue(result[i]));
-                    } catch (ValueNotFoundException e) {
-                        throw new RuntimeException(e);
+            int[] centralCodes = matchCentralCodes(q);
+            if (centralCodes != null) {
+                return new IntResultSet(centralColumn, centralCodes, centralCodes.length, dictionnary);
+            }
+        }
+
+        IntResultSet projected = matchProjected(q);
+        if (projected != null) {
+            return projected;
+        }
+
+        List<Variable> variables = q.getCanonicalVariables();
+        List<Substitution> answers = new ArrayList<>();
+        match(q).forEachRemaining(answers::add);
+        int[] codes = new int[answers.size() * variables.size()];
+        int position = 0;
+        for (Substitution answer : answers) {
+            for (Variable variable : variables) {
+                Term image = answer.createImageOf(variable);
+                codes[position++] = image.equals(variable) ? -1 : dictionnary.getKey(image);
+            }
+        }
+        return new IntResultSet(variables, codes, answers.size(), dictionnary);
+    }
+
+    /**
+     * Compte les réponses sur les codes du dictionnaire, sans construire ni décoder de substitution.
+     * Une requête d'un seul atome est comptée directement dans les statistiques de l'index, sans lire sa liste.
+     *
+     * @param q star query
+     * @return le nombre de réponses à la requête
+     */
+    @Override
+    public long count(StarQuery q) {
+        if (q.hasLimit()) {
+            // Les réponses sont produites à la demande : on s'arrête à la limite
+            return RDFStorage.super.count(q);
+        }
+        List<RDFAtom> rdfAtoms = q.getRdfAtoms();
+        if (rdfAtoms.size() == 1 && centralPosition(rdfAtoms.getFirst(), q.getCentralVariable()) != -1) {
+            return cardinality(rdfAtoms.getFirst());
+        }
+        int[] centralCodes = matchCentralCodes(q);
+        if (centralCodes != null) {
+            return centralCodes.length;
+        }
+        IntResultSet projected = matchProjected(q);
+        if (projected != null) {
+            return projected.size();
+        }
+        return RDFStorage.super.count(q);
+    }
+
+    /**
+     * Évalue une requête en étoile directement sur les codes du dictionnaire.
+     * Les atomes sont pris du plus sélectif au moins sélectif (voir {@link StarQueryPlanner}).
+     * Pour chaque atome, les candidats de la variable centrale sont lus comme une liste triée
+     * dans l'index adapté (POS, SOP ou SPO) et intersectés avec les candidats courants ;
+     * lorsque l'atome est bien plus gros que les candidats restants, chaque candidat est
+     * plutôt vérifié dans l'index, sans lire la liste de l'atome.
+     * Au-delà du seuil {@link #setParallelThreshold(int)}, les atomes restants sont vérifiés
+     * par tranches de candidats en parallèle.
+     *
+     * @param q star query
+     * @return les codes triés de la variable centrale, ou null si un atome lie une autre variable
+     *          que la variable centrale (la requête passe alors par le chemin générique)
+     */
+    private int[] matchCentralCodes(StarQuery q) {
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            if (centralPosition(atom, q.getCentralVariable()) == -1) {return null;}
+        }
+        return centralCodes(q.getRdfAtoms(), q.getCentralVariable());
+    }
+
+    /**
+     * @param atoms           des atomes formés de la variable centrale et de deux constantes
+     * @param centralVariable la variable centrale
+     * @return les codes triés de la variable centrale qui vérifient tous les atomes
+     */
+    private int[] centralCodes(List<RDFAtom> atoms, Variable centralVariable) {
+        List<RDFAtom> ordered = planner.order(atoms);
+        int[] result = null;
+        for (int i = 0; i < ordered.size(); i++) {
+            RDFAtom atom = ordered.get(i);
+            int position = centralPosition(atom, centralVariable);
+            int[] codes = encodeConstants(atom);
+            if (codes == null) {return new int[0];}
+
+            if (result == null) {
+                result = centralCandidates(position, codes);
+            } else if (result.length >= parallelThreshold) {
+                return filterInParallel(result, ordered.subList(i, ordered.size()), centralVariable);
+            } else {
+                result = candidateFilter(atom, position, codes, result.length).apply(result);
+            }
+            if (result.length == 0) {return result;}
+        }
+        return result;
+    }
+
+    /**
+     * Évalue une requête limitée sans calculer l'intersection complète.
+     *
+     * @param q star query avec une clause LIMIT
+     * @return les substitutions de la variable centrale, au plus {@link StarQuery#getLimit()}
+     */
+    private Iterator<Substitution> matchWithLimit(StarQuery q) {
+        PrimitiveIterator.OfInt centralCodes = limitedCentralCodes(q);
+        if (centralCodes == null) {
+            IntResultSet projected = matchProjected(q);
+            if (projected != null) {
+                return projected.toSubstitutions();
+            }
+            return matchBySubstitutions(q);
+        }
+
+        Variable centralVariable = q.getCentralVariable();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return centralCodes.hasNext();
+            }
+
+            @Override
+            public Substitution next() {
+                return centralSubstitution(centralVariable, centralCodes.nextInt());
+            }
+        };
+    }
+
+    /**
+     * Produit à la demande les codes de la variable centrale d'une requête limitée : les candidats
+     * de l'atome le plus sélectif sont lus au fil de l'index, chacun est vérifié dans l'index des autres atomes,
+     * et l'évaluation s'arrête dès que la limite est atteinte. La première réponse ne dépend donc
+     * pas du nombre total de réponses.
+     *
+     * @param q star query avec une clause LIMIT
+     * @return au plus {@link StarQuery#getLimit()} codes distincts, ou null si un atome lie une autre variable
+     *          que la variable centrale
+     */
+    private PrimitiveIterator.OfInt limitedCentralCodes(StarQuery q) {
+        long limit = q.getLimit();
+        Variable centralVariable = q.getCentralVariable();
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            if (centralPosition(atom, centralVariable) == -1) {return null;}
+        }
+
+        List<RDFAtom> ordered = planner.order(q);
+        int[] positions = new int[ordered.size()];
+        int[][] codes = new int[ordered.size()][];
+        for (int i = 0; i < ordered.size(); i++) {
+            positions[i] = centralPosition(ordered.get(i), centralVariable);
+            codes[i] = encodeConstants(ordered.get(i));
+            if (codes[i] == null || limit == 0) {return IntStream.empty().iterator();}
+        }
+        Iterator<int[]> seed = switch (positions[0]) {
+            case 0 -> POS.iterateByTwo(codes[0][1], codes[0][2]);
+            case 1 -> SOP.iterateByTwo(codes[0][0], codes[0][2]);
+            default -> SPO.iterateByTwo(codes[0][0], codes[0][1]);
+        };
+
+        return new PrimitiveIterator.OfInt() {
+            private long produced = 0;
+            private int next = -1;
+
+            @Override
+            public boolean hasNext() {
+                while (next == -1 && produced < limit && seed.hasNext()) {
+                    // La variable centrale est le troisième élément des triplets de l'index du premier atome
+                    int candidate = seed.next()[2];
+                    boolean verified = true;
+                    for (int i = 1; i < positions.length && verified; i++) {
+                        verified = containsCentral(candidate, positions[i], codes[i]);
+                    }
+                    if (verified) {
+                        next = candidate;
                     }
                 }
+                return next != -1;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int candidate = next;
+                next = -1;
+                produced++;
+                return candidate;
+            }
+        };
+    }
+
+    /**
+     * Filtre qui garde les candidats vérifiant l'atome : vérification candidat par candidat
+     * dans l'index si l'atome est bien plus gros que les candidats, intersection avec
+     * la liste de l'atome sinon. La liste de l'atome est lue une seule fois, à la création du filtre.
+     *
+     * @param candidateCount nombre de candidats à filtrer
+     */
+    private UnaryOperator<int[]> candidateFilter(RDFAtom atom, int position, int[] codes, int candidateCount) {
+        if ((long) candidateCount * PROBE_RATIO < cardinality(atom)) {
+            return candidates -> probeCentralCandidates(candidates, position, codes);
+        }
+        int[] atomCandidates = centralCandidates(position, codes);
+        return candidates -> PostingLists.intersect(candidates, atomCandidates);
+    }
+
+    /**
+     * Filtre un grand ensemble de candidats par les atomes restants, par tranches traitées
+     * en parallèle sur le pool fork/join commun, puis fusionne les résultats partiels.
+     */
+    private int[] filterInParallel(int[] candidates, List<RDFAtom> remainingAtoms, Variable centralVariable) {
+        List<UnaryOperator<int[]>> filters = new ArrayList<>(remainingAtoms.size());
+        for (RDFAtom atom : remainingAtoms) {
+            int[] codes = encodeConstants(atom);
+            if (codes == null) {return new int[0];}
+            filters.add(candidateFilter(atom, centralPosition(atom, centralVariable), codes, candidates.length));
+        }
+
+        // Quelques tranches par cœur pour équilibrer la charge, sans descendre sous MIN_CHUNK_SIZE
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        int chunkSize = Math.max(Math.min(MIN_CHUNK_SIZE, parallelThreshold),
+                (candidates.length + 4 * parallelism - 1) / (4 * parallelism));
+        return ForkJoinPool.commonPool().invoke(new CandidateFilterTask(candidates, 0, candidates.length, chunkSize, filters));
+    }
+
+    /**
+     * @return la position de la variable centrale dans l'atome, ou -1 si l'atome ne se compose
+     *          pas de la variable centrale et de deux constantes
+     */
+    private static int centralPosition(RDFAtom atom, Variable centralVariable) {
+        Term[] terms = atom.getTerms();
+        int position = -1;
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].equals(centralVariable)) {
+                if (position != -1) {return -1;}
+                position = i;
+            } else if (!terms[i].isLiteral()) {
+                return -1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return les codes des constantes de l'atome (0 pour les variables), ou null si une constante est inconnue
+     */
+    private int[] encodeConstants(RDFAtom atom) {
+        Term[] terms = atom.getTerms();
+        int[] codes = new int[3];
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].isLiteral()) {
+                codes[i] = dictionnary.getKey(terms[i]);
+                if (codes[i] == -1) {return null;}
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Une fois le store figé, les listes passent par {@link PostingListCache} : un même atome
+     * partagé par plusieurs requêtes n'est lu qu'une fois dans l'index.
+     *
+     * @return les valeurs encodées possibles de la variable centrale pour cet atome, triées (à ne pas modifier)
+     */
+    private int[] centralCandidates(int position, int[] codes) {
+        PostingListCache cache = postingListCache;
+        if (!frozen || cache == null) {
+            return readCentralCandidates(position, codes);
+        }
+        return switch (position) {
+            case 0 -> cache.get(0, codes[1], codes[2], () -> readCentralCandidates(0, codes));
+            case 1 -> cache.get(1, codes[0], codes[2], () -> readCentralCandidates(1, codes));
+            default -> cache.get(2, codes[0], codes[1], () -> readCentralCandidates(2, codes));
+        };
+    }
+
+    private int[] readCentralCandidates(int position, int[] codes) {
+        return switch (position) {
+            case 0 -> POS.getThirdElements(codes[1], codes[2]);
+            case 1 -> SOP.getThirdElements(codes[0], codes[2]);
+            default -> SPO.getThirdElements(codes[0], codes[1]);
+        };
+    }
+
+    /**
+     * Garde les candidats qui, placés à la position centrale, forment un triplet présent.
+     * La vérification passe par l'index dont le candidat est le premier élément :
+     * ses feuilles sont petites, contrairement à la liste de l'atome.
+     */
+    private int[] probeCentralCandidates(int[] candidates, int position, int[] codes) {
+        int[] result = new int[candidates.length];
+        int size = 0;
+        for (int candidate : candidates) {
+            if (containsCentral(candidate, position, codes)) {
+                result[size++] = candidate;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return true si le candidat, placé à la position centrale de l'atome, forme un triplet présent
+     */
+    private boolean containsCentral(int candidate, int position, int[] codes) {
+        return switch (position) {
+            case 0 -> SPO.containsTriplet(candidate, codes[1], codes[2]);
+            case 1 -> PSO.containsTriplet(candidate, codes[0], codes[2]);
+            default -> OSP.containsTriplet(candidate, codes[0], codes[1]);
+        };
+    }
+
+    /**
+     * Construit les substitutions de la variable centrale à la demande, une par code.
+     */
+    private Iterator<Substitution> decodeCentral(Variable centralVariable, int[] centralCodes) {
+        return new Iterator<>() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < centralCodes.length;
+            }
+
+            @Override
+            public Substitution next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return centralSubstitution(centralVariable, centralCodes[position++]);
+            }
+        };
+    }
+
+    /**
+     * @return la substitution qui envoie la variable centrale sur le terme décodé
+     */
+    private Substitution centralSubstitution(Variable centralVariable, int code) {
+        Substitution substitution = new SubstitutionImpl();
+        try {
+            substitution.add(centralVariable, dictionnary.getValue(code));
+        } catch (ValueNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return substitution;
+    }
+
+    /**
+     * Évalue une requête en étoile dont des atomes lient d'autres variables que la variable centrale,
+     * en ne produisant que les variables réponses (toutes les variables si la requête n'en précise aucune).
+     *
+     * Les candidats de la variable centrale viennent des atomes à deux constantes (voir {@link #centralCodes}),
+     * ou à défaut de l'atome le plus sélectif. Pour chaque candidat, un atome dont les autres variables
+     * ne sont ni projetées ni partagées avec un autre atome n'est qu'un test d'existence dans l'index ;
+     * seuls les autres atomes sont énumérés, et leurs liaisons sont jointes sur les variables partagées.
+     * Les lignes ne sont dédoublonnées que si la projection écarte une variable énumérée ou la variable centrale :
+     * sinon elles sont distinctes par construction.
+     *
+     * @param q star query
+     * @return les réponses projetées et encodées, ou null si un atome ne contient pas la variable centrale
+     *          ou répète une variable (la requête passe alors par le chemin générique)
+     */
+    private IntResultSet matchProjected(StarQuery q) {
+        Variable centralVariable = q.getCentralVariable();
+        List<Variable> others = new ArrayList<>();
+        Map<Variable, Integer> occurrences = new HashMap<>();
+        List<RDFAtom> constantAtoms = new ArrayList<>();
+        List<RDFAtom> variableAtoms = new ArrayList<>();
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            Set<Term> atomVariables = new HashSet<>();
+            for (Term term : atom.getTerms()) {
+                if (term.isLiteral()) {continue;}
+                if (!(term instanceof Variable variable) || !atomVariables.add(variable)) {return null;}
+                if (!variable.equals(centralVariable)) {
+                    if (!occurrences.containsKey(variable)) {others.add(variable);}
+                    occurrences.merge(variable, 1, Integer::sum);
+                }
+            }
+            if (!atomVariables.contains(centralVariable)) {return null;}
+            (atomVariables.size() == 1 ? constantAtoms : variableAtoms).add(atom);
+        }
+
+        List<Variable> columns = q.getAnswerVariables().isEmpty()
+                ? q.getCanonicalVariables()
+                : q.getAnswerVariables().stream().distinct().toList();
+        List<VariableAtom> filters = new ArrayList<>();
+        List<VariableAtom> enumerated = new ArrayList<>();
+        for (RDFAtom atom : planner.order(variableAtoms)) {
+            VariableAtom variableAtom = VariableAtom.of(atom, centralVariable, others, encodeConstants(atom));
+            if (variableAtom == null) {return new IntResultSet(columns, new int[0], 0, dictionnary);}
+            boolean enumerate = false;
+            for (int slot : variableAtom.slots) {
+                Variable variable = others.get(slot);
+                enumerate |= columns.contains(variable) || occurrences.get(variable) > 1;
+            }
+            (enumerate ? enumerated : filters).add(variableAtom);
+        }
+
+        int[] candidates = constantAtoms.isEmpty()
+                ? distinctCentralValues(planner.order(variableAtoms).getFirst(), centralVariable)
+                : centralCodes(constantAtoms, centralVariable);
+
+        boolean distinct = columns.contains(centralVariable);
+        for (VariableAtom variableAtom : enumerated) {
+            for (int slot : variableAtom.slots) {
+                distinct &= columns.contains(others.get(slot));
+            }
+        }
+        int[] columnSlots = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            // -1 : variable centrale
+            columnSlots[i] = others.indexOf(columns.get(i));
+        }
+        RowCollector rows = new RowCollector(columnSlots, q.hasLimit() ? q.getLimit() : Long.MAX_VALUE, !distinct);
+
+        int[] values = new int[others.size()];
+        int[][] bindings = new int[enumerated.size()][];
+        for (int candidate : candidates) {
+            if (rows.isFull()) {break;}
+            boolean verified = true;
+            for (int i = 0; i < filters.size() && verified; i++) {
+                verified = filters.get(i).exists(this, candidate);
+            }
+            for (int i = 0; i < enumerated.size() && verified; i++) {
+                bindings[i] = enumerated.get(i).bindings(this, candidate);
+                verified = bindings[i].length > 0;
+            }
+            if (verified) {
+                Arrays.fill(values, -1);
+                join(candidate, enumerated, bindings, 0, values, rows);
+            }
+        }
+        return new IntResultSet(columns, rows.codes, rows.size, dictionnary);
+    }
+
+    /**
+     * Joint les liaisons des atomes énumérés à partir du i-ème, pour un candidat de la variable centrale :
+     * une liaison n'est gardée que si elle s'accorde avec les variables déjà liées par les atomes précédents.
+     */
+    private static void join(int candidate, List<VariableAtom> enumerated, int[][] bindings, int i, int[] values, RowCollector rows) {
+        if (i == enumerated.size()) {
+            rows.add(candidate, values);
+            return;
+        }
+        int[] slots = enumerated.get(i).slots;
+        int[] tuples = bindings[i];
+        int[] previous = new int[slots.length];
+        for (int t = 0; t < tuples.length && !rows.isFull(); t += slots.length) {
+            boolean consistent = true;
+            for (int j = 0; j < slots.length; j++) {
+                previous[j] = values[slots[j]];
+                consistent &= previous[j] == -1 || previous[j] == tuples[t + j];
+            }
+            if (!consistent) {continue;}
+            for (int j = 0; j < slots.length; j++) {
+                values[slots[j]] = tuples[t + j];
+            }
+            join(candidate, enumerated, bindings, i + 1, values, rows);
+            for (int j = 0; j < slots.length; j++) {
+                values[slots[j]] = previous[j];
+            }
+        }
+    }
+
+    /**
+     * @return les valeurs distinctes et triées de la variable centrale dans les triplets de l'atome
+     */
+    private int[] distinctCentralValues(RDFAtom atom, Variable centralVariable) {
+        int[] codes = encodeConstants(atom);
+        if (codes == null) {return new int[0];}
+        Term[] terms = atom.getTerms();
+        int centralPosition = Arrays.asList(terms).indexOf(centralVariable);
+        int constantPosition = -1;
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].isLiteral()) {constantPosition = i;}
+        }
+
+        // Constante en tête d'index, puis variable centrale : ses valeurs arrivent groupées
+        Iterator<int[]> triplets;
+        int column;
+        if (constantPosition == -1) {
+            triplets = indexFor(centralPosition, (centralPosition + 1) % 3).iterateAll();
+            column = 0;
+        } else {
+            triplets = indexFor(constantPosition, centralPosition).iterateByOne(codes[constantPosition]);
+            column = 1;
+        }
+        int[] values = new int[16];
+        int size = 0;
+        while (triplets.hasNext()) {
+            int value = triplets.next()[column];
+            if (size == 0 || values[size - 1] != value) {
+                if (size == values.length) {values = Arrays.copyOf(values, size * 2);}
+                values[size++] = value;
+            }
+        }
+        // L'ordre des groupes n'est garanti que par les index figés
+        return IntStream.of(values).limit(size).sorted().distinct().toArray();
+    }
+
+    /**
+     * @return l'index dont les triplets commencent par les positions (0 sujet, 1 prédicat, 2 objet) données
+     */
+    private Index indexFor(int first, int second) {
+        return switch (first * 3 + second) {
+            case 1 -> SPO;
+            case 2 -> SOP;
+            case 3 -> PSO;
+            case 5 -> POS;
+            case 6 -> OSP;
+            default -> OPS;
+        };
+    }
+
+    /**
+     * Atome qui lie la variable centrale et une ou deux autres variables, préparé pour l'évaluation projetée.
+     */
+    private static final class VariableAtom {
+        private final int centralPosition;
+        // Position de la constante (-1 s'il n'y en a pas) et codes des constantes
+        private final int constantPosition;
+        private final int[] codes;
+        // Positions des autres variables dans l'atome et leur rang parmi les variables non centrales
+        private final int[] positions;
+        private final int[] slots;
+
+        private VariableAtom(int centralPosition, int constantPosition, int[] codes, int[] positions, int[] slots) {
+            this.centralPosition = centralPosition;
+            this.constantPosition = constantPosition;
+            this.codes = codes;
+            this.positions = positions;
+            this.slots = slots;
+        }
+
+        /**
+         * @return l'atome préparé, ou null si une de ses constantes est inconnue du dictionnaire
+         */
+        static VariableAtom of(RDFAtom atom, Variable centralVariable, List<Variable> others, int[] codes) {
+            if (codes == null) {return null;}
+            Term[] terms = atom.getTerms();
+            int centralPosition = -1;
+            int constantPosition = -1;
+            int[] positions = new int[2];
+            int[] slots = new int[2];
+            int count = 0;
+            for (int i = 0; i < terms.length; i++) {
+                if (terms[i].isLiteral()) {
+                    constantPosition = i;
+                } else if (terms[i].equals(centralVariable)) {
+                    centralPosition = i;
+                } else {
+                    positions[count] = i;
+                    slots[count++] = others.indexOf(terms[i]);
+                }
+            }
+            return new VariableAtom(centralPosition, constantPosition, codes,
+                    Arrays.copyOf(positions, count), Arrays.copyOf(slots, count));
+        }
+
+        /// Vrai si l'atome a au moins un triplet dont la variable centrale vaut `candidate`
+        boolean exists(RDFHexaStore store, int candidate) {
+            if (constantPosition == -1) {
+                return store.indexFor(centralPosition, positions[0]).countByOne(candidate) > 0;
             }
-            uniqueSubstitutions.add(substitution);
+            return store.indexFor(centralPosition, constantPosition).countByTwo(candidate, codes[constantPosition]) > 0;
         }
 
-        return uniqueSubstitutions.iterator();
+        /**
+         * @return les liaisons des autres variables pour ce candidat, bout à bout dans l'ordre de {@code slots}
+         */
+        int[] bindings(RDFHexaStore store, int candidate) {
+            if (constantPosition != -1) {
+                return store.indexFor(centralPosition, constantPosition).getThirdElements(candidate, codes[constantPosition]);
+            }
+            // Deux variables : l'index commence par la variable centrale puis la première autre variable
+            int[] tuples = new int[16];
+            int size = 0;
+            Iterator<int[]> triplets = store.indexFor(centralPosition, positions[0]).iterateByOne(candidate);
+            while (triplets.hasNext()) {
+                int[] triplet = triplets.next();
+                if (size + 2 > tuples.length) {tuples = Arrays.copyOf(tuples, tuples.length * 2);}
+                tuples[size++] = triplet[1];
+                tuples[size++] = triplet[2];
+            }
+            return Arrays.copyOf(tuples, size);
+        }
     }
 
+    /**
+     * Accumule les lignes projetées d'une évaluation, jusqu'à la limite éventuelle,
+     * en les dédoublonnant si la projection peut produire deux fois la même ligne.
+     */
+    private static final class RowCollector {
+        // Rang de la variable de chaque colonne parmi les variables non centrales (-1 : variable centrale)
+        private final int[] columnSlots;
+        private final long limit;
+        private final Set<IntBuffer> seen;
+        private int[] codes;
+        private int size = 0;
+
+        RowCollector(int[] columnSlots, long limit, boolean deduplicate) {
+            this.columnSlots = columnSlots;
+            this.limit = limit;
+            this.seen = deduplicate ? new HashSet<>() : null;
+            this.codes = new int[16 * Math.max(1, columnSlots.length)];
+        }
+
+        boolean isFull() {
+            return size >= limit;
+        }
+
+        void add(int candidate, int[] values) {
+            int[] row = new int[columnSlots.length];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = columnSlots[i] == -1 ? candidate : values[columnSlots[i]];
+            }
+            // IntBuffer compare son contenu : la ligne sert directement de clé
+            if (seen != null && !seen.add(IntBuffer.wrap(row))) {return;}
+            if ((size + 1) * row.length > codes.length) {
+                codes = Arrays.copyOf(codes, codes.length * 2);
+            }
+            System.arraycopy(row, 0, codes, size * row.length, row.length);
+            size++;
+        }
+    }
 
     /**
+     * Chemin générique : intersection des ensembles de substitutions de chaque atome.
+     * Utilisé lorsque des atomes lient d'autres variables que la variable centrale.
+     * Avec une clause LIMIT, le parcours du dernier atome s'arrête dès que la limite est atteinte.
+     *
      * @param q star query
      * @return an itérateur de subsitutions décrivrant les réponses à la requete
      */
-    @Override
-    public Iterator<Substitution> match(StarQuery q) {
-        List<RDFAtom> rdfAtoms = q.getRdfAtoms();
+    private Iterator<Substitution> matchBySubstitutions(StarQuery q) {
+        List<RDFAtom> rdfAtoms = planner.order(q);
+        long limit = q.hasLimit() ? q.getLimit() : Long.MAX_VALUE;
 
         Iterator<Substitution> matchingAtoms = match(rdfAtoms.getFirst());
         Set<Substitution> currentMatches = new HashSet<>();
-        matchingAtoms.forEachRemaining(currentMatches::add);
+        // Seules les réponses du dernier atome sont des réponses de la requête : les autres ensembles restent complets
+        long firstLimit = rdfAtoms.size() == 1 ? limit : Long.MAX_VALUE;
+        while (currentMatches.size() < firstLimit && matchingAtoms.hasNext()) {
+            currentMatches.add(matchingAtoms.next());
+        }
 
         if (currentMatches.isEmpty()) {
             return Collections.emptyIterator();
@@ -261,14 +1374,15 @@ public class RDFHexaStore implements RDFStorage {
         for (int i = 1; i < rdfAtoms.size(); i++) {
             RDFAtom rdfAtom = rdfAtoms.get(i);
             Iterator<Substitution> matchResult = match(rdfAtom);
+            long stepLimit = i == rdfAtoms.size() - 1 ? limit : Long.MAX_VALUE;
 
             Set<Substitution> tempMatches = new HashSet<>();
-            Set<Substitution> finalCurrentMatches = currentMatches;
-            matchResult.forEachRemaining(substitution -> {
-                if (finalCurrentMatches.contains(substitution)) {
+            while (tempMatches.size() < stepLimit && matchResult.hasNext()) {
+                Substitution substitution = matchResult.next();
+                if (currentMatches.contains(substitution)) {
                     tempMatches.add(substitution);
                 }
-            });
+            }
 
             currentMatches = tempMatches;
 
@@ -282,8 +1396,20 @@ public class RDFHexaStore implements RDFStorage {
 
 
 
+    /**
+     * Décode tous les triplets de l'index SPO.
+     */
     @Override
     public Collection<Atom> getAtoms() {
-        return new HashSet<>(rdfAtoms);
+        Collection<Atom> atoms = new HashSet<>(SPO.size());
+        Iterator<int[]> triplets = SPO.iterateAll();
+        try {
+            while (triplets.hasNext()) {
+                atoms.add(dictionnary.decodeTriplet(triplets.next()));
+            }
+        } catch (ValueNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return atoms;
     }
 }
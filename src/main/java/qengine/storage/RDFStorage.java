@@ -36,6 +36,22 @@ public interface RDFStorage {
      */
     Iterator<Substitution> match(StarQuery q);
 
+    /**
+     * Compte les réponses d'une requête en étoile.
+     * Par défaut les substitutions sont construites puis comptées ; les stores qui évaluent
+     * les requêtes sur des identifiants encodés comptent sans construire de substitution.
+     *
+     * @param q star query
+     * @return le nombre de réponses à la requête
+     */
+    default long count(StarQuery q) {
+        long count = 0;
+        for (Iterator<Substitution> answers = match(q); answers.hasNext(); answers.next()) {
+            count++;
+        }
+        return count;
+    }
+
 //    /**
 //     * Retourne le nombre d'atomes dans le Store.
 //     *
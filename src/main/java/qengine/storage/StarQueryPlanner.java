@@ -0,0 +1,63 @@
+package qengine.storage;
+
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Planificateur des requêtes en étoile : ordonne les atomes du plus sélectif au moins sélectif.
+ * L'estimation de cardinalité d'un atome est fournie par le store (voir {@link RDFHexaStore#cardinality(RDFAtom)}).
+ * Évaluer d'abord l'atome le plus sélectif garde les résultats intermédiaires petits
+ * et permet d'arrêter l'évaluation au plus tôt lorsqu'un atome n'a aucune réponse.
+ */
+public class StarQueryPlanner {
+    private final ToLongFunction<RDFAtom> cardinality;
+
+    /**
+     * @param cardinality estimation du nombre de triplets correspondant à un atome
+     */
+    public StarQueryPlanner(ToLongFunction<RDFAtom> cardinality) {
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * Ordonne les atomes de la requête par cardinalité croissante.
+     * Le tri est stable (à cardinalité égale, l'ordre de la requête est conservé)
+     * et la liste de la requête n'est pas modifiée.
+     *
+     * @param q star query
+     * @return une nouvelle liste contenant les atomes de la requête, du plus au moins sélectif
+     */
+    public List<RDFAtom> order(StarQuery q) {
+        return order(q.getRdfAtoms());
+    }
+
+    /**
+     * Ordonne des atomes par cardinalité croissante, par exemple une partie des atomes d'une requête.
+     *
+     * @param atoms les atomes à ordonner (non modifiés)
+     * @return une nouvelle liste contenant les atomes, du plus au moins sélectif
+     */
+    public List<RDFAtom> order(List<RDFAtom> atoms) {
+        long[] estimates = new long[atoms.size()];
+        Integer[] positions = new Integer[atoms.size()];
+        for (int i = 0; i < atoms.size(); i++) {
+            estimates[i] = cardinality.applyAsLong(atoms.get(i));
+            positions[i] = i;
+        }
+
+        // Chaque estimation n'est calculée qu'une fois, le tri porte sur les positions
+        Arrays.sort(positions, Comparator.comparingLong(i -> estimates[i]));
+
+        List<RDFAtom> ordered = new ArrayList<>(atoms.size());
+        for (Integer position : positions) {
+            ordered.add(atoms.get(position));
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,70 @@
+package test.java.qengine.benchmark;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.benchmark.BenchmarkRunner;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link BenchmarkRunner}.
+ */
+class BenchmarkRunnerTest {
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    private static Literal<String> literal(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    @Test
+    void testPercentile() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = i + 1;
+        }
+        assertEquals(50, BenchmarkRunner.percentile(latencies, 50));
+        assertEquals(90, BenchmarkRunner.percentile(latencies, 90));
+        assertEquals(99, BenchmarkRunner.percentile(latencies, 99));
+        assertEquals(100, BenchmarkRunner.percentile(latencies, 100));
+
+        // Rang le plus proche : avec 3 mesures, le 99e centile est la plus grande
+        long[] few = {5, 7, 40};
+        assertEquals(7, BenchmarkRunner.percentile(few, 50));
+        assertEquals(40, BenchmarkRunner.percentile(few, 99));
+        assertEquals(5, BenchmarkRunner.percentile(new long[]{5}, 50), "Une seule mesure est son propre centile.");
+
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkRunner.percentile(new long[0], 50));
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkRunner.percentile(few, 0));
+    }
+
+    @Test
+    void testWarmupCount() {
+        assertEquals(20, BenchmarkRunner.warmupCount(100, 0.2));
+        assertEquals(3, BenchmarkRunner.warmupCount(11, 0.2), "La fraction est arrondie au supérieur.");
+        assertEquals(0, BenchmarkRunner.warmupCount(1, 0.2), "Une requête seule est mesurée, pas chauffée.");
+        assertEquals(4, BenchmarkRunner.warmupCount(5, 0.9), "Au moins une requête reste mesurée.");
+        assertEquals(0, BenchmarkRunner.warmupCount(5, 0), "Sans chauffe, toutes les requêtes sont mesurées.");
+    }
+
+    @Test
+    void testTemplateOf() {
+        StarQuery twoAtoms = new StarQuery("q", List.of(
+                new RDFAtom(VAR_X, literal("http://db.uwaterloo.ca/~galuc/wsdbm/likes"), literal("http://db.uwaterloo.ca/~galuc/wsdbm/Product1")),
+                new RDFAtom(VAR_X, literal("http://schema.org/nationality"), literal("http://db.uwaterloo.ca/~galuc/wsdbm/Country3"))),
+                List.of(VAR_X));
+        assertEquals("Q_2_likes_nationality", BenchmarkRunner.templateOf(twoAtoms));
+
+        StarQuery fragment = new StarQuery("q", List.of(
+                new RDFAtom(VAR_X, literal("http://xmlns.com/foaf/homepage#page"), VAR_Y),
+                new RDFAtom(VAR_X, VAR_Y, literal("object"))), List.of(VAR_X));
+        assertEquals("Q_2_page_var", BenchmarkRunner.templateOf(fragment),
+                "Le nom local suit le dernier '/' ou '#', un prédicat variable est noté var.");
+    }
+}
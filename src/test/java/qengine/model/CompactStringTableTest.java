@@ -0,0 +1,47 @@
+package test.java.qengine.model;
+
+import org.junit.jupiter.api.Test;
+import qengine.model.CompactStringTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link CompactStringTable}.
+ */
+public class CompactStringTableTest {
+
+    @Test
+    public void testGetAndIndexOf() {
+        List<String> labels = new ArrayList<>();
+        // Plusieurs blocs, des espaces de noms partagés, des préfixes communs et des littéraux
+        for (int i = 0; i < 100; i++) {
+            labels.add("http://db.uwaterloo.ca/~galuc/wsdbm/User" + i);
+            labels.add("http://schema.org/" + (char) ('a' + i % 26) + "Property" + i);
+            labels.add("\"valeur é " + i + "\"");
+        }
+        labels.add("http://purl.org/stuff/rev#Review");
+        labels.add("");
+        CompactStringTable table = CompactStringTable.of(labels);
+
+        assertEquals(labels.size(), table.size(), "La table doit contenir tous les libellés.");
+        for (int id = 0; id < labels.size(); id++) {
+            assertEquals(labels.get(id), table.get(id), "Le libellé décodé doit être celui de l'identifiant.");
+            assertEquals(id, table.indexOf(labels.get(id)), "Le libellé doit retrouver son identifiant.");
+        }
+        assertEquals(-1, table.indexOf("http://db.uwaterloo.ca/~galuc/wsdbm/User100"), "Un nom local absent n'a pas d'identifiant.");
+        assertEquals(-1, table.indexOf("http://example.org/User0"), "Un espace de noms absent n'a pas d'identifiant.");
+        assertEquals(-1, table.indexOf("\"valeur\""));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(labels.size()));
+    }
+
+    @Test
+    public void testEmptyTable() {
+        CompactStringTable table = CompactStringTable.of(List.of());
+
+        assertEquals(0, table.size());
+        assertEquals(-1, table.indexOf("http://schema.org/name"), "Une table vide ne contient aucun libellé.");
+    }
+}
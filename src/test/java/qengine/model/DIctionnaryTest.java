@@ -9,6 +9,16 @@ import qengine.model.RDFAtom;
 import qengine.storage.RDFHexaStore;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -151,4 +161,233 @@ public class DIctionnaryTest {
 
         assertEquals("subject1 : 1\n", dictionnary.toString(), "ToString is supposed to return 'term : key'");
     }
+
+    @Test
+    public void testGetOrAddKey() throws ValueNotFoundException {
+        Dictionnary dictionnary = new Dictionnary();
+
+        assertEquals(0, dictionnary.getOrAddKey(SUBJECT_1), "Le premier terme reçoit la clé 0.");
+        assertEquals(1, dictionnary.getOrAddKey(PREDICATE_1), "Un nouveau terme reçoit la clé suivante.");
+        assertEquals(0, dictionnary.getOrAddKey(SUBJECT_1), "Un terme connu garde sa clé.");
+        assertEquals(1, dictionnary.getKey(PREDICATE_1), "La clé attribuée doit être retrouvée par getKey.");
+        assertEquals(PREDICATE_1, dictionnary.getValue(1), "La clé attribuée doit être décodée.");
+        assertEquals(-1, dictionnary.getOrAddKey(VAR_X), "Une variable n'a pas de clé.");
+        assertEquals(2, dictionnary.size(), "Seules les constantes sont ajoutées.");
+    }
+
+    @Test
+    public void testFrequencyOrderedCodex() {
+        Dictionnary dictionnary = new Dictionnary();
+
+        dictionnary.addTerm(SUBJECT_1);
+        dictionnary.addTerm(PREDICATE_1);
+        dictionnary.addTerm(PREDICATE_1);
+        dictionnary.addTerm(OBJECT_1);
+        dictionnary.addTerm(OBJECT_1);
+
+        dictionnary.createFrequencyOrderedCodex();
+        dictionnary.initializeKeyMap();
+
+        assertEquals(0, dictionnary.getKey(PREDICATE_1), "Le terme le plus fréquent reçoit la clé 0.");
+        assertEquals(1, dictionnary.getKey(OBJECT_1), "À fréquence égale, l'ordre d'insertion est conservé.");
+        assertEquals(2, dictionnary.getKey(SUBJECT_1), "Le terme le moins fréquent reçoit la plus grande clé.");
+    }
+
+    @Test
+    public void testReorderByFrequency() throws ValueNotFoundException {
+        Dictionnary dictionnary = new Dictionnary();
+        dictionnary.getOrAddKey(SUBJECT_1);
+        dictionnary.getOrAddKey(PREDICATE_1);
+        dictionnary.getOrAddKey(OBJECT_1);
+
+        int[] mapping = dictionnary.reorderByFrequency(new int[]{1, 5, 1});
+
+        assertArrayEquals(new int[]{1, 0, 2}, mapping, "La table doit donner la nouvelle clé de chaque ancienne clé.");
+        assertEquals(0, dictionnary.getKey(PREDICATE_1), "Le terme le plus fréquent reçoit la clé 0.");
+        assertEquals(PREDICATE_1, dictionnary.getValue(0), "La clé réattribuée doit être décodée.");
+        assertEquals(1, dictionnary.getKey(SUBJECT_1), "À fréquence égale, l'ordre des clés est conservé.");
+        assertEquals(OBJECT_1, dictionnary.getValue(2));
+    }
+
+    @Test
+    public void testCompact() throws ValueNotFoundException {
+        Dictionnary dictionnary = new Dictionnary();
+        dictionnary.getOrAddKey(SUBJECT_1);
+        dictionnary.getOrAddKey(PREDICATE_1);
+        dictionnary.getOrAddKey(OBJECT_1);
+
+        assertTrue(dictionnary.compact(), "Des littéraux textuels doivent pouvoir être compactés.");
+        assertTrue(dictionnary.isCompacted());
+
+        assertEquals(3, dictionnary.size(), "La compaction ne doit pas perdre de terme.");
+        assertEquals(1, dictionnary.getKey(PREDICATE_1), "Les clés doivent être conservées.");
+        assertEquals(OBJECT_1, dictionnary.getValue(2), "La valeur doit être décodée depuis la table compacte.");
+        assertEquals(-1, dictionnary.getKey(SUBJECT_2), "Un terme absent n'a pas de clé.");
+        assertEquals(-1, dictionnary.getKey(VAR_X), "Une variable n'a pas de clé.");
+        assertThrows(ValueNotFoundException.class, () -> dictionnary.getValue(3));
+        assertThrows(IllegalStateException.class, () -> dictionnary.reorderByFrequency(new int[3]),
+                "Les clés d'un dictionnaire compacté ne peuvent plus être réattribuées.");
+    }
+
+    @Test
+    public void testGetOrCreateKeyAfterCodex() throws ValueNotFoundException {
+        Dictionnary dictionnary = new Dictionnary();
+        dictionnary.addTerm(SUBJECT_1);
+        dictionnary.addTerm(PREDICATE_1);
+        dictionnary.addTerm(PREDICATE_1);
+        dictionnary.createFrequencyOrderedCodex();
+        dictionnary.initializeKeyMap();
+
+        assertEquals(0, dictionnary.getOrCreateKey(PREDICATE_1), "Un terme du codex garde sa clé.");
+        assertEquals(2, dictionnary.getOrCreateKey(OBJECT_1), "Un nouveau terme reçoit la clé qui suit le codex.");
+        assertEquals(2, dictionnary.getOrCreateKey(OBJECT_1), "Un terme ajouté garde sa clé.");
+        assertEquals(3, dictionnary.getOrAddKey(OBJECT_2), "Le chargement continue à la suite des termes ajoutés.");
+        assertEquals(OBJECT_2, dictionnary.getValue(3));
+        assertEquals(4, dictionnary.size());
+        assertEquals(-1, dictionnary.getOrCreateKey(VAR_X), "Une variable n'a pas de clé.");
+        assertThrows(IllegalStateException.class, () -> dictionnary.reorderByFrequency(new int[4]),
+                "Les clés ne peuvent plus être réattribuées après un ajout à la volée.");
+
+        // La compaction intègre les termes ajoutés, qui gardent leur clé
+        assertTrue(dictionnary.compact());
+        assertEquals(2, dictionnary.getKey(OBJECT_1));
+        assertEquals(4, dictionnary.getOrCreateKey(SUBJECT_2), "Un dictionnaire compacté accepte de nouveaux termes.");
+        assertEquals(SUBJECT_2, dictionnary.getValue(4));
+        assertEquals(4, dictionnary.getKey(SUBJECT_2), "Un terme ajouté après la compaction doit être retrouvé.");
+        assertEquals(4, dictionnary.getOrCreateKey(SUBJECT_2), "Un terme ajouté après la compaction garde sa clé.");
+        assertEquals(5, dictionnary.size());
+        assertArrayEquals(new int[]{4, 0, 2}, dictionnary.encodeTriplet(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1)));
+    }
+
+    @Test
+    public void testGetOrCreateKeyWithConcurrentReaders() throws Exception {
+        Dictionnary dictionnary = new Dictionnary();
+        dictionnary.getOrAddKey(SUBJECT_1);
+        int termCount = 20_000;
+        List<Literal<String>> terms = new ArrayList<>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            terms.add(SameObjectTermFactory.instance().createOrGetLiteral("appended" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            // Deux écrivains ajoutent les mêmes termes : chaque terme ne doit recevoir qu'une clé
+            for (int writer = 0; writer < 2; writer++) {
+                futures.add(executor.submit(() -> {
+                    for (Literal<String> term : terms) {
+                        dictionnary.getOrCreateKey(term);
+                    }
+                    return 0;
+                }));
+            }
+            // Les lecteurs décodent toute clé visible pendant les ajouts
+            for (int reader = 0; reader < 2; reader++) {
+                futures.add(executor.submit(() -> {
+                    int checked = 0;
+                    while (dictionnary.size() <= termCount) {
+                        for (Literal<String> term : terms) {
+                            int key = dictionnary.getKey(term);
+                            if (key != -1) {
+                                assertEquals(term, dictionnary.getValue(key), "Une clé visible doit être décodable.");
+                                checked++;
+                            }
+                        }
+                    }
+                    return checked;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(termCount + 1, dictionnary.size(), "Chaque terme ne doit être ajouté qu'une fois.");
+        Set<Integer> keys = new HashSet<>();
+        for (Literal<String> term : terms) {
+            keys.add(dictionnary.getKey(term));
+        }
+        assertEquals(termCount, keys.size(), "Chaque terme doit avoir une clé distincte.");
+    }
+
+    @Test
+    public void testGetOrCreateKeyWithConcurrentCompact() throws Exception {
+        int termCount = 20_000;
+        List<Literal<String>> terms = new ArrayList<>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            terms.add(SameObjectTermFactory.instance().createOrGetLiteral("compacted" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // La compaction tombe à un moment différent de chaque tour
+            for (int round = 0; round < 20; round++) {
+                Dictionnary dictionnary = new Dictionnary();
+                dictionnary.getOrAddKey(SUBJECT_1);
+                int compactAfter = termCount * round / 20;
+
+                List<Future<?>> futures = new ArrayList<>();
+                // Deux écrivains ajoutent les mêmes termes pendant la compaction : chaque terme ne doit recevoir qu'une clé
+                for (int writer = 0; writer < 2; writer++) {
+                    futures.add(executor.submit(() -> {
+                        for (Literal<String> term : terms) {
+                            dictionnary.getOrCreateKey(term);
+                        }
+                        return null;
+                    }));
+                }
+                futures.add(executor.submit(() -> {
+                    while (dictionnary.size() <= compactAfter) {
+                        Thread.onSpinWait();
+                    }
+                    return dictionnary.compact();
+                }));
+                for (Future<?> future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+
+                assertTrue(dictionnary.isCompacted());
+                assertEquals(termCount + 1, dictionnary.size(), "Chaque terme ne doit être ajouté qu'une fois (tour " + round + ").");
+                Set<Integer> keys = new HashSet<>();
+                for (Literal<String> term : terms) {
+                    int key = dictionnary.getKey(term);
+                    assertEquals(term, dictionnary.getValue(key), "La clé d'un terme doit le décoder.");
+                    keys.add(key);
+                }
+                assertEquals(termCount, keys.size(), "Chaque terme doit avoir une clé distincte.");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAddTermsInParallel() {
+        // Assez d'atomes pour plusieurs tranches, avec des termes partagés entre tranches
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            atoms.add(new RDFAtom(
+                    SameObjectTermFactory.instance().createOrGetLiteral("subject" + (i % 7_000)),
+                    SameObjectTermFactory.instance().createOrGetLiteral("predicate" + (i % 13)),
+                    SameObjectTermFactory.instance().createOrGetLiteral("object" + (i * 31 % 20_011))));
+        }
+
+        Dictionnary sequential = new Dictionnary();
+        atoms.forEach(atom -> Arrays.stream(atom.getTerms()).forEach(sequential::addTerm));
+        sequential.createFrequencyOrderedCodex();
+        sequential.initializeKeyMap();
+
+        Dictionnary parallel = new Dictionnary();
+        parallel.addTermsInParallel(atoms);
+        parallel.createFrequencyOrderedCodex();
+        parallel.initializeKeyMap();
+
+        assertEquals(sequential.size(), parallel.size(), "Les deux dictionnaires doivent contenir les mêmes termes.");
+        assertEquals(sequential.toString(), parallel.toString(), "Les fréquences et l'ordre d'insertion doivent être identiques.");
+        for (RDFAtom atom : atoms) {
+            assertArrayEquals(sequential.encodeTriplet(atom), parallel.encodeTriplet(atom), "Les clés doivent être identiques.");
+        }
+    }
 }
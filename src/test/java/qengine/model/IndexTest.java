@@ -0,0 +1,270 @@
+package test.java.qengine.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import qengine.model.CompressedIndex;
+import qengine.model.FrozenIndex;
+import qengine.model.HashMapIndex;
+import qengine.model.Index;
+import qengine.model.IntIndex;
+import qengine.model.IntTripleBuffer;
+import qengine.model.MappedIndex;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires communs aux implémentations de {@link Index}.
+ */
+class IndexTest {
+
+    /// Chaque implémentation est décrite par une fonction qui construit l'index à partir de triplets.
+    static Stream<Arguments> implementations() {
+        return Stream.of(
+                Arguments.of("HashMapIndex", (Function<int[][], Index>) triplets -> fill(new HashMapIndex(), triplets)),
+                Arguments.of("IntIndex", (Function<int[][], Index>) triplets -> fill(new IntIndex(), triplets)),
+                Arguments.of("FrozenIndex", (Function<int[][], Index>) triplets -> FrozenIndex.of(fill(new IntIndex(), triplets))),
+                Arguments.of("MappedIndex", (Function<int[][], Index>) triplets -> mapped(FrozenIndex.of(fill(new IntIndex(), triplets)))),
+                Arguments.of("CompressedIndex", (Function<int[][], Index>) triplets -> CompressedIndex.of(fill(new IntIndex(), triplets))),
+                Arguments.of("FrozenIndex.sortedOf", (Function<int[][], Index>) IndexTest::radixSorted)
+        );
+    }
+
+    /// Range les triplets dans un tampon dans un autre ordre (troisième, premier, second), puis les trie par base
+    private static Index radixSorted(int[][] triplets) {
+        IntTripleBuffer buffer = new IntTripleBuffer();
+        for (int[] triplet : triplets) {
+            buffer.add(triplet[2], triplet[0], triplet[1]);
+        }
+        return FrozenIndex.sortedOf(buffer, 1, 2, 0);
+    }
+
+    /// Écrit l'index figé dans un fichier temporaire puis le projette en mémoire
+    private static Index mapped(FrozenIndex index) {
+        try {
+            Path file = Files.createTempFile("index", ".bin");
+            file.toFile().deleteOnExit();
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                index.writeTo(out);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return MappedIndex.map(channel, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Index fill(Index index, int[][] triplets) {
+        for (int[] triplet : triplets) {
+            index.ajoutTriplet(triplet);
+        }
+        return index;
+    }
+
+    private static Index buildIndex(Function<int[][], Index> indexBuilder) {
+        return indexBuilder.apply(new int[][]{{0, 1, 2}, {0, 1, 3}, {0, 4, 5}, {6, 1, 2}});
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testSearchByThree(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        List<int[]> result = index.searchByThree(0, 1, 3);
+        assertEquals(1, result.size(), "Le triplet (0, 1, 3) devrait être trouvé.");
+        assertArrayEquals(new int[]{0, 1, 3}, result.getFirst());
+
+        assertTrue(index.searchByThree(0, 1, 5).isEmpty(), "Le triplet (0, 1, 5) ne devrait pas être trouvé.");
+        assertTrue(index.searchByThree(7, 1, 2).isEmpty(), "Le premier élément 7 n'existe pas.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testSearchByTwo(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        List<int[]> result = index.searchByTwo(0, 1);
+        assertEquals(2, result.size(), "Deux triplets commencent par (0, 1).");
+        assertTrue(result.stream().anyMatch(t -> t[2] == 2));
+        assertTrue(result.stream().anyMatch(t -> t[2] == 3));
+
+        assertTrue(index.searchByTwo(0, 2).isEmpty(), "Aucun triplet ne commence par (0, 2).");
+        assertTrue(index.searchByTwo(9, 1).isEmpty(), "Aucun triplet ne commence par 9.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testSearchByOne(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        List<int[]> result = index.searchByOne(0);
+        assertEquals(3, result.size(), "Trois triplets commencent par 0.");
+        assertTrue(result.stream().allMatch(t -> t[0] == 0));
+        assertTrue(result.stream().anyMatch(t -> t[1] == 4 && t[2] == 5));
+
+        assertEquals(1, index.searchByOne(6).size(), "Un seul triplet commence par 6.");
+        assertTrue(index.searchByOne(1).isEmpty(), "Aucun triplet ne commence par 1.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testManyTriplets(String name, Function<int[][], Index> indexBuilder) {
+        int[][] triplets = new int[10_000][];
+        for (int i = 0; i < triplets.length; i++) {
+            triplets[i] = new int[]{i % 100, i % 7, i};
+        }
+        Index index = indexBuilder.apply(triplets);
+
+        assertEquals(100, index.searchByOne(42).size(), "Chaque premier élément regroupe 100 triplets.");
+        int total = 0;
+        for (int second = 0; second < 7; second++) {
+            total += index.searchByTwo(42, second).size();
+        }
+        assertEquals(100, total, "La somme des feuilles doit couvrir tous les triplets du groupe.");
+        assertEquals(1, index.searchByThree(42, 9942 % 7, 9942).size());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testForEachTriplet(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        List<int[]> triplets = new ArrayList<>();
+        index.forEachTriplet((first, second, third) -> triplets.add(new int[]{first, second, third}));
+
+        assertEquals(4, triplets.size(), "Tous les triplets doivent être parcourus.");
+        assertTrue(triplets.stream().anyMatch(t -> t[0] == 6 && t[1] == 1 && t[2] == 2));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testCountsAndContains(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        assertEquals(3, index.countByOne(0), "Trois triplets commencent par 0.");
+        assertEquals(0, index.countByOne(1), "Aucun triplet ne commence par 1.");
+        assertEquals(2, index.countByTwo(0, 1), "Deux triplets commencent par (0, 1).");
+        assertEquals(0, index.countByTwo(6, 4), "Aucun triplet ne commence par (6, 4).");
+
+        assertTrue(index.containsTriplet(6, 1, 2), "Le triplet (6, 1, 2) est présent.");
+        assertFalse(index.containsTriplet(0, 4, 2), "Le triplet (0, 4, 2) est absent.");
+        assertFalse(index.containsTriplet(42, 1, 2), "Le premier élément 42 n'existe pas.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testLongLeaf(String name, Function<int[][], Index> indexBuilder) {
+        // Une feuille de plusieurs blocs de saut (valeurs paires, écarts sur un ou plusieurs octets), puis une courte
+        int[][] triplets = new int[1001][];
+        for (int i = 0; i < 1000; i++) {
+            triplets[i] = new int[]{3, 7, i * (i < 500 ? 2 : 1000)};
+        }
+        triplets[1000] = new int[]{3, 8, 1};
+        Index index = indexBuilder.apply(triplets);
+
+        assertEquals(1000, index.countByTwo(3, 7), "La longue feuille compte 1000 triplets.");
+        assertEquals(1, index.countByTwo(3, 8), "La feuille suivante ne compte qu'un triplet.");
+        int[] thirdElements = index.getThirdElements(3, 7);
+        assertEquals(1000, thirdElements.length);
+        for (int i = 0; i < 1000; i++) {
+            int value = i * (i < 500 ? 2 : 1000);
+            assertEquals(value, thirdElements[i]);
+            assertTrue(index.containsTriplet(3, 7, value), "Le triplet (3, 7, " + value + ") est présent.");
+        }
+        assertFalse(index.containsTriplet(3, 7, 1), "Les valeurs impaires du début de la feuille sont absentes.");
+        assertFalse(index.containsTriplet(3, 7, 999), "Une valeur entre deux blocs est absente.");
+        assertFalse(index.containsTriplet(3, 7, 500_001), "Une valeur entre deux grands écarts est absente.");
+        assertFalse(index.containsTriplet(3, 7, Integer.MAX_VALUE), "Une valeur après la fin de la feuille est absente.");
+        assertFalse(index.containsTriplet(3, 8, 2), "La recherche ne déborde pas sur la feuille suivante.");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("implementations")
+    void testLazyIterators(String name, Function<int[][], Index> indexBuilder) {
+        Index index = buildIndex(indexBuilder);
+
+        assertEquals(Set.of(List.of(0, 1, 2), List.of(0, 1, 3)), tripletSet(index.iterateByTwo(0, 1)),
+                "Deux triplets commencent par (0, 1).");
+        assertEquals(Set.of(List.of(0, 1, 2), List.of(0, 1, 3), List.of(0, 4, 5)), tripletSet(index.iterateByOne(0)),
+                "Trois triplets commencent par 0.");
+        assertEquals(Set.of(List.of(0, 1, 2), List.of(0, 1, 3), List.of(0, 4, 5), List.of(6, 1, 2)), tripletSet(index.iterateAll()),
+                "Tous les triplets doivent être parcourus.");
+
+        assertFalse(index.iterateByTwo(0, 2).hasNext(), "Aucun triplet ne commence par (0, 2).");
+        assertFalse(index.iterateByOne(1).hasNext(), "Aucun triplet ne commence par 1.");
+        assertThrows(NoSuchElementException.class, () -> index.iterateByOne(1).next());
+    }
+
+    /// Le tableau renvoyé par les itérateurs est réutilisé : on le copie pour le conserver.
+    /// Parcours par hasNext/next, comme le store (forEachRemaining peut masquer un tableau partagé mis en tampon).
+    private static List<int[]> copyAll(Iterator<int[]> iterator) {
+        List<int[]> triplets = new ArrayList<>();
+        while (iterator.hasNext()) {
+            triplets.add(iterator.next().clone());
+        }
+        return triplets;
+    }
+
+    /// Triplets parcourus par l'itérateur ; un triplet rendu deux fois fait échouer le test
+    private static Set<List<Integer>> tripletSet(Iterator<int[]> iterator) {
+        Set<List<Integer>> triplets = new HashSet<>();
+        for (int[] triplet : copyAll(iterator)) {
+            assertTrue(triplets.add(List.of(triplet[0], triplet[1], triplet[2])), "Triplet rendu deux fois : " + Arrays.toString(triplet));
+        }
+        return triplets;
+    }
+
+    @Test
+    void testFrozenIndexIsSortedAndReadOnly() {
+        Index index = FrozenIndex.of(fill(new IntIndex(), new int[][]{{3, 2, 9}, {3, 1, 7}, {3, 2, 4}, {3, 2, 9}}));
+
+        List<int[]> result = index.searchByOne(3);
+        assertEquals(3, result.size(), "Le doublon (3, 2, 9) doit être éliminé.");
+        assertArrayEquals(new int[]{3, 1, 7}, result.get(0));
+        assertArrayEquals(new int[]{3, 2, 4}, result.get(1));
+        assertArrayEquals(new int[]{3, 2, 9}, result.get(2));
+
+        assertThrows(UnsupportedOperationException.class, () -> index.ajoutTriplet(new int[]{0, 0, 0}));
+    }
+
+    @Test
+    void testSortedOfLargeIdentifiers() {
+        // Identifiants sur plus d'un chiffre de tri, doublons et ordre d'arrivée quelconque
+        Random random = new Random(42);
+        IntTripleBuffer buffer = new IntTripleBuffer();
+        IntIndex expected = new IntIndex();
+        for (int i = 0; i < 5_000; i++) {
+            int first = random.nextInt(50);
+            int second = random.nextInt(1 << 20);
+            int third = random.nextInt(Integer.MAX_VALUE);
+            if (i % 10 == 0) {second = 7;}
+            buffer.add(first, second, third);
+            expected.ajoutTriplet(new int[]{first, second, third});
+            if (i % 100 == 0) {buffer.add(first, second, third);}
+        }
+
+        FrozenIndex sorted = FrozenIndex.sortedOf(buffer, 0, 1, 2);
+        assertArrayEquals(copyAll(FrozenIndex.of(expected).iterateAll()).toArray(), copyAll(sorted.iterateAll()).toArray(),
+                "Le tri par base doit donner les mêmes triplets, dans le même ordre, que FrozenIndex.of.");
+    }
+}
@@ -219,4 +219,69 @@ class StarQueryTest {
         assertEquals(answerVariables, foQuery.getAnswerVariables(), "Les variables de réponse doivent être les mêmes que celles de la requête étoile.");
     }
 
+
+    @Test
+    void testFingerprint() {
+        Variable x = termFactory.createOrGetVariable("?x");
+        Variable y = termFactory.createOrGetVariable("?y");
+        Variable z = termFactory.createOrGetVariable("?z");
+        Term predicate1 = termFactory.createOrGetLiteral("http://example.org/predicate1");
+        Term predicate2 = termFactory.createOrGetLiteral("http://example.org/predicate2");
+        Term object1 = termFactory.createOrGetLiteral("http://example.org/object1");
+
+        StarQuery query = new StarQuery("q1",
+                List.of(new RDFAtom(x, predicate1, object1), new RDFAtom(x, predicate2, y)), List.of(x, y));
+        // Même requête : autre label, atomes inversés, variables renommées
+        StarQuery renamed = new StarQuery("q2",
+                List.of(new RDFAtom(z, predicate2, x), new RDFAtom(z, predicate1, object1)), List.of(x, z));
+
+        assertNotEquals(query, renamed);
+        assertEquals(query.getFingerprint(), renamed.getFingerprint(), "Les deux requêtes ont la même forme canonique.");
+        assertSame(query.getFingerprint(), query.getFingerprint(), "L'empreinte ne doit être calculée qu'une fois.");
+        assertEquals(List.of(x, y), query.getCanonicalVariables());
+        assertEquals(List.of(z, x), renamed.getCanonicalVariables(), "?z correspond à ?x et ?x à ?y.");
+
+        StarQuery otherAnswers = new StarQuery("q3",
+                List.of(new RDFAtom(x, predicate1, object1), new RDFAtom(x, predicate2, y)), List.of(x));
+        StarQuery otherConstant = new StarQuery("q4",
+                List.of(new RDFAtom(x, predicate1, object1), new RDFAtom(x, predicate1, y)), List.of(x, y));
+        assertNotEquals(query.getFingerprint(), otherAnswers.getFingerprint(), "Les variables réponses font partie de la forme canonique.");
+        assertNotEquals(query.getFingerprint(), otherConstant.getFingerprint());
+
+        StarQuery limited = new StarQuery("q5", query.getRdfAtoms(), List.of(x, y), 10);
+        assertNotEquals(query.getFingerprint(), limited.getFingerprint(), "La limite fait partie de la forme canonique.");
+        assertThrows(IllegalArgumentException.class, () -> new StarQuery("q6", query.getRdfAtoms(), List.of(x), -5));
+    }
+
+    @Test
+    void testFingerprintIgnoresOrderOfSimilarAtoms() {
+        Variable x = termFactory.createOrGetVariable("?x");
+        Variable y = termFactory.createOrGetVariable("?y");
+        Variable z = termFactory.createOrGetVariable("?z");
+        Variable a = termFactory.createOrGetVariable("?a");
+        Variable b = termFactory.createOrGetVariable("?b");
+        Term p = termFactory.createOrGetLiteral("http://example.org/p");
+        Term q = termFactory.createOrGetLiteral("http://example.org/q");
+        Term object1 = termFactory.createOrGetLiteral("http://example.org/object1");
+
+        // Les deux atomes en p ont la même écriture anonyme, mais ?y apparaît aussi dans l'atome en q
+        StarQuery query = new StarQuery("q1",
+                List.of(new RDFAtom(x, p, y), new RDFAtom(x, p, z), new RDFAtom(x, q, y)), List.of(x));
+        StarQuery reordered = new StarQuery("q2",
+                List.of(new RDFAtom(x, p, a), new RDFAtom(x, p, b), new RDFAtom(x, q, b)), List.of(x));
+        assertEquals(query.getFingerprint(), reordered.getFingerprint(), "Les classes des variables départagent les atomes en p.");
+        assertEquals(List.of(x, y, z), query.getCanonicalVariables());
+        assertEquals(List.of(x, b, a), reordered.getCanonicalVariables(), "?b correspond à ?y et ?a à ?z.");
+
+        // ?y et ?z sont interchangeables : l'ordre des atomes ne change que leur numérotation
+        StarQuery symmetric = new StarQuery("q3",
+                List.of(new RDFAtom(x, y, object1), new RDFAtom(x, z, object1), new RDFAtom(x, p, y), new RDFAtom(x, p, z)), List.of(x));
+        StarQuery symmetricReordered = new StarQuery("q4",
+                List.of(new RDFAtom(x, z, object1), new RDFAtom(x, y, object1), new RDFAtom(x, p, y), new RDFAtom(x, p, z)), List.of(x));
+        assertEquals(symmetric.getFingerprint(), symmetricReordered.getFingerprint());
+
+        StarQuery different = new StarQuery("q5",
+                List.of(new RDFAtom(x, p, y), new RDFAtom(x, p, z), new RDFAtom(x, q, object1)), List.of(x));
+        assertNotEquals(query.getFingerprint(), different.getFingerprint());
+    }
 }
@@ -5,10 +5,13 @@ import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.query.api.Query;
 import qengine.parser.StarQuerySparQLParser;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.NoSuchElementException;
 
@@ -128,4 +131,61 @@ class StarQuerySparQLParserTest {
         }
     }
 
+    @Test
+    void testParseLimit() throws IOException {
+        String limitQueryFile = SRC_DIR+"test/resources/limit_query.queryset";
+
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(limitQueryFile)) {
+            StarQuery limited = (StarQuery) parser.next();
+            assertEquals(10, limited.getLimit(), "La clause LIMIT devrait être lue.");
+
+            StarQuery unlimited = (StarQuery) parser.next();
+            assertFalse(unlimited.hasLimit(), "Une requête sans clause LIMIT ne devrait pas être limitée.");
+            assertEquals(StarQuery.NO_LIMIT, unlimited.getLimit());
+
+            StarQuery empty = (StarQuery) parser.next();
+            assertEquals(0, empty.getLimit(), "La clause LIMIT devrait être lue quelle que soit sa casse.");
+
+            StarQuery nextLine = (StarQuery) parser.next();
+            assertEquals(5, nextLine.getLimit(), "Une clause LIMIT sur la ligne suivant l'accolade devrait être lue.");
+            StarQuery following = (StarQuery) parser.next();
+            assertFalse(following.hasLimit(), "La requête suivante ne devrait pas hériter de la clause LIMIT.");
+            assertFalse(parser.hasNext(), "Il devrait y avoir 5 requêtes dans le fichier.");
+        }
+    }
+
+    @Test
+    void testParseOffsetOnNextLine(@TempDir Path tempDir) throws IOException {
+        Path queryFile = tempDir.resolve("offset.queryset");
+        Files.writeString(queryFile, """
+                SELECT ?v0 WHERE {
+                	?v0 <http://schema.org/nationality> <http://db.uwaterloo.ca/~galuc/wsdbm/Country3> . }
+                OFFSET 2
+                """);
+
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(queryFile.toString())) {
+            RuntimeException error = assertThrows(RuntimeException.class, parser::hasNext,
+                    "Une clause OFFSET, même sur sa propre ligne, n'est pas prise en charge.");
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        }
+    }
+
+    @Test
+    void testParseOffsetOnSameLine(@TempDir Path tempDir) throws IOException {
+        Path queryFile = tempDir.resolve("offset.queryset");
+        Files.writeString(queryFile, """
+                SELECT ?v0 WHERE {
+                	?v0 <http://schema.org/nationality> <http://db.uwaterloo.ca/~galuc/wsdbm/Country3> . } LIMIT 10 OFFSET 5
+                SELECT ?v0 WHERE {
+                	?v0 <http://schema.org/nationality> <http://db.uwaterloo.ca/~galuc/wsdbm/Country1> . }
+                """);
+
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(queryFile.toString())) {
+            RuntimeException error = assertThrows(RuntimeException.class, parser::hasNext,
+                    "Une clause OFFSET après LIMIT sur la ligne de l'accolade n'est pas prise en charge.");
+            assertInstanceOf(IllegalArgumentException.class, error.getCause(),
+                    "La requête doit s'arrêter à l'accolade, sans avaler la requête suivante.");
+            assertTrue(error.getCause().getMessage().contains("OFFSET"));
+        }
+    }
 }
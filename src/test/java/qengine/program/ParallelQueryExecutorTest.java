@@ -0,0 +1,77 @@
+package test.java.qengine.program;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.program.ParallelQueryExecutor;
+import qengine.program.Utils;
+import qengine.storage.RDFHexaStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link ParallelQueryExecutor}.
+ */
+class ParallelQueryExecutorTest {
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    private static Literal<String> literal(String label) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    /// Le sujet s{i} est relié aux objets o0 ... o{i} : la requête sur o{j} a 50 - j réponses
+    private static RDFHexaStore buildStore() {
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            for (int j = 0; j <= i; j++) {
+                rdfAtoms.add(new RDFAtom(literal("s" + i), literal("p"), literal("o" + j)));
+            }
+        }
+        RDFHexaStore store = new RDFHexaStore();
+        rdfAtoms.forEach(rdfAtom -> store.add_to_dico(rdfAtom.getTerms()));
+        store.dico_createCodex();
+        store.addAll(rdfAtoms, false);
+        store.freeze();
+        return store;
+    }
+
+    private static List<StarQuery> buildQueries() {
+        List<StarQuery> starQueries = new ArrayList<>();
+        for (int j = 0; j < 50; j++) {
+            starQueries.add(new StarQuery("o" + j, List.of(new RDFAtom(VAR_X, literal("p"), literal("o" + j))), List.of(VAR_X)));
+        }
+        return starQueries;
+    }
+
+    @Test
+    void testResultsKeepInputOrder() {
+        RDFHexaStore store = buildStore();
+        List<StarQuery> starQueries = buildQueries();
+        List<Set<Substitution>> expected = Utils.executeWithHexastore(starQueries, store, false);
+
+        try (ParallelQueryExecutor executor = ParallelQueryExecutor.fixed(store, 4)) {
+            List<Set<Substitution>> results = executor.executeAll(starQueries);
+            assertEquals(expected, results, "Les résultats doivent suivre l'ordre des requêtes.");
+            for (int j = 0; j < 50; j++) {
+                assertEquals(50 - j, results.get(j).size(), "Nombre de réponses de la requête o" + j);
+            }
+        }
+
+        try (ParallelQueryExecutor executor = ParallelQueryExecutor.virtual(store)) {
+            assertEquals(expected, executor.executeAll(starQueries), "Même résultat avec des threads virtuels.");
+        }
+    }
+
+    @Test
+    void testInvalidWorkerCount() {
+        assertThrows(IllegalArgumentException.class, () -> ParallelQueryExecutor.fixed(buildStore(), 0));
+    }
+}
@@ -0,0 +1,173 @@
+package test.java.qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.CachingRDFStorage;
+import qengine.storage.RDFHexaStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link CachingRDFStorage}.
+ */
+class CachingRDFStorageTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    private static final RDFAtom X_P1_O1 = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+    private static final RDFAtom X_P2_O2 = new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2);
+
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        return store;
+    }
+
+    private static List<Substitution> answers(CachingRDFStorage cache, StarQuery query) {
+        List<Substitution> answers = new ArrayList<>();
+        cache.match(query).forEachRemaining(answers::add);
+        return answers;
+    }
+
+    @Test
+    void testHitIgnoresLabelAndAtomOrder() {
+        RDFHexaStore store = store();
+        CachingRDFStorage cache = new CachingRDFStorage(store, 10);
+
+        StarQuery query = new StarQuery("q1", List.of(X_P1_O1, X_P2_O2), List.of(VAR_X));
+        StarQuery reordered = new StarQuery("q2", List.of(X_P2_O2, X_P1_O1), List.of(VAR_X));
+
+        List<Substitution> expected = new ArrayList<>();
+        store.match(query).forEachRemaining(expected::add);
+
+        assertEquals(expected, answers(cache, query));
+        assertEquals(expected, answers(cache, reordered), "Le cache doit rendre les mêmes réponses que le store.");
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits(), "Une requête réordonnée, sous un autre label, doit être servie par le cache.");
+        assertEquals(0.5, cache.getHitRate());
+
+        assertEquals(expected.size(), cache.count(reordered), "Le comptage doit être servi par le cache.");
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void testHitRenamesVariables() {
+        RDFHexaStore store = store();
+        CachingRDFStorage cache = new CachingRDFStorage(store, 10);
+        Variable varY = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+        StarQuery query = new StarQuery("q1", List.of(X_P1_O1), List.of(VAR_X));
+        StarQuery renamed = new StarQuery("q2", List.of(new RDFAtom(varY, PREDICATE_1, OBJECT_1)), List.of(varY));
+
+        List<Substitution> expected = new ArrayList<>();
+        store.match(renamed).forEachRemaining(expected::add);
+
+        answers(cache, query);
+        assertEquals(new HashSet<>(expected), new HashSet<>(answers(cache, renamed)),
+                "Les réponses gardées doivent être renommées vers les variables de la requête.");
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        CachingRDFStorage cache = new CachingRDFStorage(store(), 2);
+        StarQuery first = new StarQuery("first", List.of(X_P1_O1), List.of(VAR_X));
+        StarQuery second = new StarQuery("second", List.of(X_P2_O2), List.of(VAR_X));
+        StarQuery both = new StarQuery("both", List.of(X_P1_O1, X_P2_O2), List.of(VAR_X));
+
+        answers(cache, first);
+        answers(cache, second);
+        answers(cache, first);
+        // `second` est alors la moins récemment utilisée
+        answers(cache, both);
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictions());
+        answers(cache, first);
+        assertEquals(2, cache.getHits(), "La requête récemment utilisée doit rester en cache.");
+        answers(cache, second);
+        assertEquals(4, cache.getMisses(), "La requête la moins récemment utilisée doit avoir été évincée.");
+    }
+
+    @Test
+    void testByteBound() {
+        StarQuery query = new StarQuery("q", List.of(X_P1_O1), List.of(VAR_X));
+
+        CachingRDFStorage tiny = new CachingRDFStorage(store(), 10, 1);
+        assertEquals(2, answers(tiny, query).size());
+        answers(tiny, query);
+        assertEquals(0, tiny.getHits(), "Une réponse plus grosse que le cache ne doit pas être gardée.");
+        assertEquals(0, tiny.getEstimatedBytes());
+
+        CachingRDFStorage roomy = new CachingRDFStorage(store(), 10, 1 << 20);
+        answers(roomy, query);
+        assertTrue(roomy.getEstimatedBytes() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new CachingRDFStorage(store(), 0));
+    }
+
+    @Test
+    void testAddInvalidatesCache() {
+        CachingRDFStorage cache = new CachingRDFStorage(store(), 10);
+        StarQuery query = new StarQuery("q", List.of(X_P2_O2), List.of(VAR_X));
+
+        assertEquals(1, answers(cache, query).size());
+        assertFalse(cache.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2)), "Un triplet déjà présent n'est pas ajouté.");
+        assertEquals(1, cache.getEntryCount(), "Un ajout sans effet ne doit pas vider le cache.");
+
+        assertTrue(cache.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2)));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(2, answers(cache, query).size(), "Les réponses doivent refléter le triplet ajouté.");
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void testAddDuringMissIsNotCached() {
+        RDFHexaStore store = store();
+        List<CachingRDFStorage> cache = new ArrayList<>();
+        // Un ajout (et le vidage du cache) survient pendant que le store calcule les réponses d'un défaut
+        RDFHexaStore racing = new RDFHexaStore() {
+            private boolean raced = false;
+
+            @Override
+            public boolean add(RDFAtom atom) {
+                return store.add(atom);
+            }
+
+            @Override
+            public Iterator<Substitution> match(StarQuery q) {
+                Iterator<Substitution> answers = store.match(q);
+                List<Substitution> before = new ArrayList<>();
+                answers.forEachRemaining(before::add);
+                if (!raced) {
+                    raced = true;
+                    assertTrue(cache.getFirst().add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2)));
+                }
+                return before.iterator();
+            }
+        };
+        cache.add(new CachingRDFStorage(racing, 10));
+        StarQuery query = new StarQuery("q", List.of(X_P2_O2), List.of(VAR_X));
+
+        assertEquals(1, answers(cache.getFirst(), query).size(), "Les réponses calculées avant l'ajout sont rendues.");
+        assertEquals(0, cache.getFirst().getEntryCount(), "Mais elles ne doivent pas être gardées.");
+        assertEquals(2, answers(cache.getFirst(), query).size(), "La requête suivante doit voir le triplet ajouté.");
+        assertEquals(1, cache.getFirst().getEntryCount());
+    }
+}
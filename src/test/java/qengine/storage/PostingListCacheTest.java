@@ -0,0 +1,132 @@
+package test.java.qengine.storage;
+
+import org.junit.jupiter.api.Test;
+import qengine.storage.PostingListCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link PostingListCache}.
+ */
+class PostingListCacheTest {
+
+    private static int[] list(int length) {
+        return IntStream.range(0, length).toArray();
+    }
+
+    @Test
+    void testHitAndMiss() {
+        PostingListCache cache = new PostingListCache(1_000, 2);
+        AtomicInteger loads = new AtomicInteger();
+
+        int[] first = cache.get(0, 1, 2, () -> {loads.incrementAndGet(); return list(10);});
+        int[] second = cache.get(0, 1, 2, () -> {loads.incrementAndGet(); return list(10);});
+
+        assertSame(first, second, "La liste gardée doit être rendue telle quelle.");
+        assertEquals(1, loads.get(), "La liste ne doit être lue qu'une fois.");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Même constantes, autre position de la variable centrale : autre motif
+        cache.get(1, 1, 2, () -> list(10));
+        assertEquals(2, cache.getMisses());
+        assertEquals(20, cache.getCachedIdentifiers());
+    }
+
+    @Test
+    void testShortListsAreNotCached() {
+        PostingListCache cache = new PostingListCache(1_000, 5);
+        cache.get(2, 3, 4, () -> list(4));
+        cache.get(2, 3, 4, () -> list(4));
+
+        assertEquals(0, cache.getHits(), "Une liste plus courte que le minimum ne doit pas être gardée.");
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void testEvictionFavoursLargeFrequentLists() {
+        PostingListCache cache = new PostingListCache(100, 1);
+        cache.get(0, 1, 1, () -> list(60));
+        cache.get(0, 1, 1, () -> list(60));
+        cache.get(0, 2, 2, () -> list(30));
+
+        // Plus de place : la liste de 30 codes utilisée une fois a la plus faible priorité
+        cache.get(0, 3, 3, () -> list(40));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(100, cache.getCachedIdentifiers());
+
+        long misses = cache.getMisses();
+        cache.get(0, 1, 1, () -> list(60));
+        assertEquals(misses, cache.getMisses(), "La grande liste souvent réutilisée doit rester en cache.");
+        cache.get(0, 2, 2, () -> list(30));
+        assertEquals(misses + 1, cache.getMisses(), "La liste de plus faible priorité doit avoir été évincée.");
+
+        // Une nouvelle petite liste qui ne trouve pas de place est la première retirée
+        PostingListCache full = new PostingListCache(10, 1);
+        full.get(0, 1, 1, () -> list(10));
+        full.get(0, 2, 2, () -> list(5));
+        assertEquals(1, full.getEntryCount());
+        assertEquals(10, full.getCachedIdentifiers());
+    }
+
+    @Test
+    void testEvictionUsesCurrentPriority() {
+        PostingListCache cache = new PostingListCache(100, 1);
+        cache.get(0, 1, 1, () -> list(30));
+        cache.get(0, 2, 2, () -> list(40));
+        // La liste de 30 codes, insérée avec la plus faible priorité, est réutilisée depuis
+        for (int i = 0; i < 3; i++) {
+            cache.get(0, 1, 1, () -> list(30));
+        }
+
+        cache.get(0, 3, 3, () -> list(45));
+        assertEquals(1, cache.getEvictions());
+        long misses = cache.getMisses();
+        cache.get(0, 1, 1, () -> list(30));
+        assertEquals(misses, cache.getMisses(), "La liste réutilisée doit rester en cache malgré sa priorité d'insertion.");
+        cache.get(0, 2, 2, () -> list(40));
+        assertEquals(misses + 1, cache.getMisses(), "La liste de 40 codes utilisée une fois doit avoir été évincée.");
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        PostingListCache cache = new PostingListCache(1_000, 1);
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger wrong = new AtomicInteger();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    // 50 motifs de 10 à 59 codes : le cache ne peut pas tous les garder
+                    int pattern = (i * 7 + seed) % 50;
+                    int[] candidates = cache.get(0, pattern, pattern, () -> list(10 + pattern));
+                    if (candidates.length != 10 + pattern) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, wrong.get(), "Chaque motif doit rendre sa propre liste.");
+        assertEquals(80_000, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getCachedIdentifiers() <= 1_000, "La capacité doit être respectée.");
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new PostingListCache(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PostingListCache(10, -1));
+    }
+}
@@ -0,0 +1,48 @@
+package test.java.qengine.storage;
+
+import org.junit.jupiter.api.Test;
+import qengine.storage.PostingLists;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link PostingLists}.
+ */
+class PostingListsTest {
+
+    @Test
+    void testIntersectMerge() {
+        int[] a = {1, 3, 5, 7, 9};
+        int[] b = {2, 3, 4, 7, 10};
+
+        assertArrayEquals(new int[]{3, 7}, PostingLists.intersect(a, b));
+        assertArrayEquals(new int[]{3, 7}, PostingLists.intersect(b, a), "L'intersection doit être symétrique.");
+    }
+
+    @Test
+    void testIntersectGalloping() {
+        int[] small = {5, 500, 9_999, 20_000};
+        int[] large = IntStream.range(0, 10_000).toArray();
+
+        assertArrayEquals(new int[]{5, 500, 9_999}, PostingLists.intersect(small, large));
+    }
+
+    @Test
+    void testIntersectEmpty() {
+        assertEquals(0, PostingLists.intersect(new int[0], new int[]{1, 2, 3}).length);
+        assertEquals(0, PostingLists.intersect(new int[]{1, 2}, new int[]{3, 4}).length);
+        assertEquals(0, PostingLists.intersectAll(List.of()).length);
+    }
+
+    @Test
+    void testIntersectAll() {
+        int[] evens = IntStream.range(0, 1_000).filter(i -> i % 2 == 0).toArray();
+        int[] multiplesOfThree = IntStream.range(0, 1_000).filter(i -> i % 3 == 0).toArray();
+        int[] few = {0, 6, 7, 12, 999};
+
+        assertArrayEquals(new int[]{0, 6, 12}, PostingLists.intersectAll(List.of(evens, multiplesOfThree, few)));
+    }
+}
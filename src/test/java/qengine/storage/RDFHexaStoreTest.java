@@ -7,11 +7,21 @@ import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
 import qengine.exceptions.KeyNotFoundException;
 import qengine.model.StarQuery;
 import org.apache.commons.lang3.NotImplementedException;
+import qengine.model.CompressedIndex;
+import qengine.model.IntTripleBuffer;
 import qengine.model.RDFAtom;
+import qengine.storage.IntResultSet;
+import qengine.storage.PostingListCache;
 import qengine.storage.RDFHexaStore;
+import qengine.storage.StarQueryPlanner;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -431,8 +441,578 @@ public class RDFHexaStoreTest {
         RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
         store.add_to_dico(rdfAtom1.getTerms());
         store.dico_createCodex();
+        store.add(rdfAtom1);
+
+        // Des termes inconnus du codex reçoivent de nouvelles clés au lieu de faire échouer l'ajout
+        RDFAtom rdfAtom2 = new RDFAtom(PREDICATE_2, SUBJECT_2, OBJECT_1);
+        assertTrue(store.add(rdfAtom2), "Un atome avec des termes nouveaux doit être ajouté.");
+        assertArrayEquals(new int[]{3, 4, 2}, store.dico_encodeTriplet(rdfAtom2), "Les nouvelles clés suivent celles du codex.");
+        assertArrayEquals(new int[]{0, 1, 2}, store.dico_encodeTriplet(rdfAtom1), "Les clés du codex ne changent pas.");
+        assertEquals(Set.of(rdfAtom1, rdfAtom2), new HashSet<>(store.getAtoms()));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(PREDICATE_2, SUBJECT_2, VAR_X)).forEachRemaining(matchedList::add);
+        assertEquals(1, matchedList.size(), "L'atome ajouté doit être retrouvé.");
+
+        assertThrows(IllegalArgumentException.class, () -> store.add(new RDFAtom(VAR_X, SUBJECT_2, OBJECT_2)),
+                "Un atome contenant une variable ne peut pas être ajouté.");
+    }
+
+    @Test
+    public void testFreeze() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+
+        store.add_to_dico(rdfAtom1.getTerms());
+        store.add_to_dico(rdfAtom2.getTerms());
+        store.dico_createCodex();
+        store.addAll(List.of(rdfAtom1, rdfAtom2), false);
+
+        store.freeze();
+        assertTrue(store.isFrozen(), "Le store devrait être figé.");
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Les deux sujets doivent être retrouvés après le gel.");
+
+        assertThrows(IllegalStateException.class, () -> store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2)));
+    }
+
+    @Test
+    public void testMatchStarQueryCentralObject() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2);
+        RDFAtom rdfAtom4 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2);
+
+        for (RDFAtom rdfAtom : List.of(rdfAtom1, rdfAtom2, rdfAtom3, rdfAtom4)) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex();
+        store.addAll(List.of(rdfAtom1, rdfAtom2, rdfAtom3, rdfAtom4), false);
+
+        // ?x est en position objet dans les deux atomes
+        StarQuery query = new StarQuery("Requête étoile sur l'objet",
+                List.of(new RDFAtom(SUBJECT_1, PREDICATE_1, VAR_X), new RDFAtom(SUBJECT_2, PREDICATE_2, VAR_X)),
+                List.of(VAR_X));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(query).forEachRemaining(matchedList::add);
+
+        Substitution firstResult = new SubstitutionImpl();
+        firstResult.add(VAR_X, OBJECT_1);
+        Substitution secondResult = new SubstitutionImpl();
+        secondResult.add(VAR_X, OBJECT_2);
+
+        assertEquals(2, matchedList.size(), "There should be two matched substitutions");
+        assertTrue(matchedList.contains(firstResult), "Missing substitution: " + firstResult);
+        assertTrue(matchedList.contains(secondResult), "Missing substitution: " + secondResult);
+
+        // Une constante inconnue du dictionnaire vide le résultat
+        StarQuery unknown = new StarQuery("Constante inconnue",
+                List.of(new RDFAtom(SUBJECT_1, PREDICATE_1, VAR_X), new RDFAtom(SUBJECT_2, PREDICATE_3, VAR_X)),
+                List.of(VAR_X));
+        assertFalse(store.match(unknown).hasNext(), "No substitution expected for an unknown constant");
+    }
+
+    @Test
+    public void testCardinality() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2);
+
+        for (RDFAtom rdfAtom : List.of(rdfAtom1, rdfAtom2, rdfAtom3)) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex();
+        store.addAll(List.of(rdfAtom1, rdfAtom2, rdfAtom3), false);
+
+        assertEquals(2, store.cardinality(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), "Deux sujets pour (predicate1, object1).");
+        assertEquals(1, store.cardinality(new RDFAtom(SUBJECT_2, PREDICATE_2, VAR_X)), "Un objet pour (subject2, predicate2).");
+        assertEquals(2, store.cardinality(new RDFAtom(SUBJECT_2, VAR_X, VAR_Y)), "Deux triplets pour subject2.");
+        assertEquals(3, store.cardinality(new RDFAtom(VAR_X, VAR_Y, termFactory.createOrGetVariable("?z"))), "Tous les triplets.");
+        assertEquals(1, store.cardinality(rdfAtom3), "Le triplet est présent.");
+        assertEquals(0, store.cardinality(new RDFAtom(VAR_X, PREDICATE_3, OBJECT_1)), "Constante inconnue.");
+    }
+
+    @Test
+    public void testMatchStarQueryWithSelectivityOrdering() {
+        RDFHexaStore store = new RDFHexaStore();
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        // Un atome très peu sélectif (40 sujets) et un atome très sélectif (un seul sujet)
+        for (int i = 0; i < 40; i++) {
+            rdfAtoms.add(new RDFAtom(termFactory.createOrGetLiteral("s" + i), PREDICATE_1, OBJECT_1));
+        }
+        rdfAtoms.add(new RDFAtom(termFactory.createOrGetLiteral("s7"), PREDICATE_2, OBJECT_2));
+        rdfAtoms.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+
+        for (RDFAtom rdfAtom : rdfAtoms) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex();
+        store.addAll(rdfAtoms, false);
+
+        List<RDFAtom> queryAtoms = List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2));
+        StarQuery query = new StarQuery("Requête étoile déséquilibrée", queryAtoms, List.of(VAR_X));
+
+        List<RDFAtom> ordered = new StarQueryPlanner(store::cardinality).order(query);
+        assertEquals(queryAtoms.get(1), ordered.getFirst(), "L'atome le plus sélectif doit passer en premier.");
+        assertEquals(queryAtoms, query.getRdfAtoms(), "La requête ne doit pas être modifiée par le planificateur.");
+
+        for (boolean freeze : new boolean[]{false, true}) {
+            if (freeze) {store.freeze();}
+            List<Substitution> matchedList = new ArrayList<>();
+            store.match(query).forEachRemaining(matchedList::add);
+
+            Substitution expected = new SubstitutionImpl();
+            expected.add(VAR_X, termFactory.createOrGetLiteral("s7"));
+            assertEquals(List.of(expected), matchedList, "Seul s7 vérifie les deux atomes.");
+        }
+    }
+
+    @Test
+    public void testMatchAtomAllVariablesAndRepeatedVariable() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_1, PREDICATE_2, SUBJECT_1);
+
+        store.add_to_dico(rdfAtom1.getTerms());
+        store.add_to_dico(rdfAtom2.getTerms());
+        store.dico_createCodex();
+        store.addAll(List.of(rdfAtom1, rdfAtom2), false);
+
+        Variable varZ = termFactory.createOrGetVariable("?z");
+        List<Substitution> allTriplets = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, VAR_Y, varZ)).forEachRemaining(allTriplets::add);
+        assertEquals(2, allTriplets.size(), "Un atome sans constante correspond à tous les triplets.");
+
+        // ?x doit prendre la même valeur en position sujet et objet
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, VAR_Y, VAR_X)).forEachRemaining(matchedList::add);
+
+        Substitution expected = new SubstitutionImpl();
+        expected.add(VAR_X, SUBJECT_1);
+        expected.add(VAR_Y, PREDICATE_2);
+        assertEquals(List.of(expected), matchedList, "Seul le triplet (subject1, predicate2, subject1) convient.");
+    }
+
+    @Test
+    public void testParallelStarQueryMatchesSequential() {
+        RDFHexaStore store = new RDFHexaStore();
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Literal<String> subject = termFactory.createOrGetLiteral("s" + i);
+            rdfAtoms.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            if (i % 2 == 0) {rdfAtoms.add(new RDFAtom(subject, PREDICATE_2, OBJECT_2));}
+            if (i % 3 == 0) {rdfAtoms.add(new RDFAtom(subject, PREDICATE_3, OBJECT_3));}
+        }
+        for (RDFAtom rdfAtom : rdfAtoms) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex();
+        store.addAll(rdfAtoms, false);
+
+        StarQuery query = new StarQuery("Requête étoile parallèle", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_3, OBJECT_3)), List.of(VAR_X));
+
+        for (boolean freeze : new boolean[]{false, true}) {
+            if (freeze) {store.freeze();}
+            store.setParallelThreshold(Integer.MAX_VALUE);
+            List<Substitution> sequential = new ArrayList<>();
+            store.match(query).forEachRemaining(sequential::add);
+
+            store.setParallelThreshold(8);
+            List<Substitution> parallel = new ArrayList<>();
+            store.match(query).forEachRemaining(parallel::add);
+
+            assertEquals(50, sequential.size(), "Les multiples de 6 vérifient les trois atomes.");
+            assertEquals(sequential, parallel, "L'évaluation parallèle doit donner le même résultat, dans le même ordre.");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> store.setParallelThreshold(0));
+    }
+
+    @Test
+    public void testSaveAndLoadSnapshot(@TempDir Path tempDir) throws IOException {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, termFactory.createOrGetLiteral("objet accentué é"));
+
+        for (RDFAtom rdfAtom : List.of(rdfAtom1, rdfAtom2, rdfAtom3)) {
+            store.add_to_dico(rdfAtom.getTerms());
+        }
+        store.dico_createCodex();
+        store.addAll(List.of(rdfAtom1, rdfAtom2, rdfAtom3), false);
+
+        Path snapshot = tempDir.resolve("store.snapshot");
+        store.save(snapshot);
+        assertTrue(store.isFrozen(), "L'enregistrement fige le store.");
+
+        // Chargement sur le tas, puis projection des index en mémoire
+        for (RDFHexaStore loaded : List.of(RDFHexaStore.load(snapshot), RDFHexaStore.map(snapshot))) {
+            assertTrue(loaded.isFrozen(), "Un store chargé est figé.");
+            assertEquals(3, loaded.size(), "Le store chargé doit contenir les trois triplets.");
+            assertEquals(store.getAtoms(), loaded.getAtoms(), "Les atomes doivent être identiques après rechargement.");
+
+            List<Substitution> matchedList = new ArrayList<>();
+            loaded.match(new StarQuery("Requête après chargement",
+                    List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, termFactory.createOrGetLiteral("objet accentué é"))),
+                    List.of(VAR_X))).forEachRemaining(matchedList::add);
+            assertEquals(1, matchedList.size(), "Seul subject2 vérifie les deux atomes.");
+
+            List<Substitution> atomMatches = new ArrayList<>();
+            loaded.match(new RDFAtom(SUBJECT_2, VAR_X, VAR_Y)).forEachRemaining(atomMatches::add);
+            assertEquals(2, atomMatches.size(), "Deux triplets ont subject2 pour sujet.");
+        }
+
+        Path notASnapshot = tempDir.resolve("data.nt");
+        Files.writeString(notASnapshot, "<a> <b> <c> .");
+        assertThrows(IOException.class, () -> RDFHexaStore.load(notASnapshot));
+        assertThrows(IOException.class, () -> RDFHexaStore.map(notASnapshot));
+    }
+
+    @Test
+    public void testIngestStream() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2);
+
+        // Pas de construction préalable du dictionnaire : les clés sont attribuées pendant le chargement
+        int added = store.ingest(Stream.of(rdfAtom1, rdfAtom2, rdfAtom1, rdfAtom3));
+        assertEquals(3, added, "Le doublon ne doit pas être compté.");
+        assertEquals(3, store.size(), "Le store doit contenir trois triplets.");
+        assertArrayEquals(new int[]{0, 1, 2}, store.dico_encodeTriplet(rdfAtom1), "Les clés suivent l'ordre de première apparition.");
+        assertEquals(Set.of(rdfAtom1, rdfAtom2, rdfAtom3), new HashSet<>(store.getAtoms()));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Deux sujets pour (predicate1, object1).");
+
+        assertThrows(IllegalArgumentException.class, () -> store.ingest(Stream.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1))));
+    }
+
+    @Test
+    public void testIngestFrequencyOrderedAndCompressed() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2);
+
+        assertEquals(3, store.ingest(Stream.of(rdfAtom1, rdfAtom2, rdfAtom3), true));
+        // predicate1, object1 et subject2 apparaissent deux fois : ils précèdent les termes vus une seule fois
+        assertArrayEquals(new int[]{3, 0, 1}, store.dico_encodeTriplet(rdfAtom1), "Les clés doivent suivre la fréquence décroissante.");
+        assertArrayEquals(new int[]{2, 0, 1}, store.dico_encodeTriplet(rdfAtom2));
+
+        store.freeze(CompressedIndex::of);
+        assertTrue(store.isFrozen(), "Le store doit être figé.");
+        assertEquals(Set.of(rdfAtom1, rdfAtom2, rdfAtom3), new HashSet<>(store.getAtoms()));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Deux sujets pour (predicate1, object1).");
+        assertEquals(1, store.cardinality(new RDFAtom(SUBJECT_2, PREDICATE_2, VAR_X)));
+
+        RDFHexaStore filled = new RDFHexaStore();
+        filled.ingest(Stream.of(rdfAtom1));
+        assertThrows(IllegalStateException.class, () -> filled.ingest(Stream.of(rdfAtom2), true),
+                "La renumérotation est impossible une fois des triplets insérés.");
+    }
+
+    @Test
+    public void testAddEncodedInParallel() {
+        // La clé i désigne le terme "t<i>" dans les deux stores
+        Term[] terms = new Term[97];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = SameObjectTermFactory.instance().createOrGetLiteral("t" + i);
+        }
+        RDFHexaStore sequential = new RDFHexaStore();
+        RDFHexaStore parallel = new RDFHexaStore();
+        for (RDFHexaStore store : List.of(sequential, parallel)) {
+            store.add_to_dico(terms);
+            store.dico_createCodex();
+        }
+
+        IntTripleBuffer buffer = new IntTripleBuffer();
+        for (int i = 0; i < 1_000; i++) {
+            buffer.add(i % 97, i % 5, i % 89);
+        }
+        int added = sequential.addEncoded(buffer);
+        assertEquals(added, parallel.addEncodedInParallel(buffer), "Les doublons doivent être écartés de la même façon.");
+        assertEquals(0, parallel.addEncodedInParallel(buffer), "Des triplets déjà présents ne doivent pas être ajoutés.");
+        assertEquals(new HashSet<>(sequential.getAtoms()), new HashSet<>(parallel.getAtoms()));
+
+        // Chaque permutation est interrogée par un motif différent
+        for (int i = 0; i < 5; i++) {
+            for (RDFAtom pattern : List.of(
+                    new RDFAtom(terms[i], terms[i], VAR_X), new RDFAtom(terms[i], VAR_X, terms[i]),
+                    new RDFAtom(VAR_X, terms[i], terms[i]), new RDFAtom(terms[i], VAR_X, VAR_Y),
+                    new RDFAtom(VAR_X, terms[i], VAR_Y), new RDFAtom(VAR_X, VAR_Y, terms[i]))) {
+                assertEquals(sequential.cardinality(pattern), parallel.cardinality(pattern), "Cardinalité différente pour " + pattern);
+                List<Substitution> expected = new ArrayList<>();
+                List<Substitution> actual = new ArrayList<>();
+                sequential.match(pattern).forEachRemaining(expected::add);
+                parallel.match(pattern).forEachRemaining(actual::add);
+                assertEquals(new HashSet<>(expected), new HashSet<>(actual), "Réponses différentes pour " + pattern);
+            }
+        }
+    }
+
+    @Test
+    public void testBulkLoad() {
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2);
+        List<RDFAtom> atoms = List.of(rdfAtom1, rdfAtom2, rdfAtom1, rdfAtom3);
+
+        RDFHexaStore expected = new RDFHexaStore();
+        expected.ingest(atoms.stream(), true);
+        RDFHexaStore store = new RDFHexaStore();
+        assertEquals(3, store.bulkLoad(atoms.stream(), true), "Le doublon ne doit pas être compté.");
+
+        assertTrue(store.isFrozen(), "Le store doit être figé après un chargement en masse.");
+        assertArrayEquals(expected.dico_encodeTriplet(rdfAtom1), store.dico_encodeTriplet(rdfAtom1), "Les clés doivent être celles de ingest.");
+        assertEquals(Set.of(rdfAtom1, rdfAtom2, rdfAtom3), new HashSet<>(store.getAtoms()));
+        for (RDFAtom pattern : List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, VAR_X, VAR_Y),
+                new RDFAtom(VAR_X, VAR_Y, OBJECT_2), new RDFAtom(VAR_X, PREDICATE_1, VAR_Y))) {
+            assertEquals(expected.cardinality(pattern), store.cardinality(pattern), "Cardinalité différente pour " + pattern);
+        }
+
+        RDFHexaStore filled = new RDFHexaStore();
+        filled.ingest(Stream.of(rdfAtom1));
+        assertThrows(IllegalStateException.class, () -> filled.bulkLoad(Stream.of(rdfAtom2), false),
+                "Le chargement en masse n'est possible que sur un store vide.");
+    }
+
+    @Test
+    public void testPostingListCache() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.ingest(Stream.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2)));
+        PostingListCache cache = new PostingListCache(1_000, 1);
+        store.setPostingListCache(cache);
+        StarQuery query = new StarQuery("q", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+
+        Set<Substitution> beforeFreeze = new HashSet<>();
+        store.match(query).forEachRemaining(beforeFreeze::add);
+        assertEquals(0, cache.getMisses(), "Le cache ne doit pas être consulté tant que le store peut changer.");
+
+        store.freeze();
+        for (int run = 0; run < 2; run++) {
+            Set<Substitution> answers = new HashSet<>();
+            store.match(query).forEachRemaining(answers::add);
+            assertEquals(beforeFreeze, answers, "Le cache ne doit pas changer les réponses.");
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits(), "La liste de l'atome doit être servie par le cache à la seconde requête.");
+
+        store.setPostingListCache(null);
+        Set<Substitution> uncached = new HashSet<>();
+        store.match(query).forEachRemaining(uncached::add);
+        assertEquals(beforeFreeze, uncached, "Sans cache, les réponses doivent être lues dans l'index.");
+    }
+
+    @Test
+    public void testCount() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.ingest(Stream.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2), new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3)));
+
+        List<StarQuery> queries = List.of(
+                new StarQuery("un atome", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X)),
+                new StarQuery("deux atomes", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)), List.of(VAR_X)),
+                new StarQuery("autre variable", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_X, VAR_Y)),
+                new StarQuery("constante inconnue", List.of(new RDFAtom(VAR_X, PREDICATE_3, OBJECT_1)), List.of(VAR_X)));
+        for (boolean frozen : new boolean[]{false, true}) {
+            if (frozen) {store.freeze();}
+            for (StarQuery query : queries) {
+                Set<Substitution> answers = new HashSet<>();
+                store.match(query).forEachRemaining(answers::add);
+                assertEquals(answers.size(), store.count(query), "Nombre de réponses différent pour " + query.getLabel());
+            }
+        }
+        assertEquals(2, store.count(queries.getFirst()));
+    }
+
+    @Test
+    public void testMatchWithLimit() {
+        RDFHexaStore store = new RDFHexaStore();
+        List<Literal<String>> subjects = new ArrayList<>();
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Literal<String> subject = termFactory.createOrGetLiteral("subject" + i);
+            subjects.add(subject);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            // Un sujet sur deux vérifie aussi le second atome
+            if (i % 2 == 0) {
+                atoms.add(new RDFAtom(subject, PREDICATE_2, OBJECT_2));
+            }
+        }
+        store.ingest(atoms.stream());
+        List<RDFAtom> star = List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2));
+
+        Set<Substitution> all = new HashSet<>();
+        store.match(new StarQuery("sans limite", star, List.of(VAR_X))).forEachRemaining(all::add);
+        assertEquals(10, all.size());
+
+        for (long limit : new long[]{0, 1, 3, 10, 50}) {
+            StarQuery query = new StarQuery("limite " + limit, star, List.of(VAR_X), limit);
+            List<Substitution> limited = new ArrayList<>();
+            store.match(query).forEachRemaining(limited::add);
+            assertEquals(Math.min(limit, 10), limited.size(), "Nombre de réponses incorrect pour LIMIT " + limit);
+            assertEquals(limited.size(), new HashSet<>(limited).size(), "Les réponses ne doivent pas se répéter.");
+            assertTrue(all.containsAll(limited), "Les réponses limitées doivent être des réponses de la requête.");
+            assertEquals(limited.size(), store.count(query));
+        }
+
+        // Chemin générique : ?y n'est pas la variable centrale
+        StarQuery generic = new StarQuery("générique", List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y)), List.of(VAR_X, VAR_Y), 4);
+        assertEquals(4, store.count(generic));
+    }
+
+    @Test
+    public void testGenericMatchWithLimitStopsEarly() {
+        // Compte les réponses lues sur chaque atome par l'évaluation de la requête
+        List<Integer> read = new ArrayList<>();
+        RDFHexaStore store = new RDFHexaStore() {
+            @Override
+            public Iterator<Substitution> match(RDFAtom atom) {
+                Iterator<Substitution> answers = super.match(atom);
+                int index = read.size();
+                read.add(0);
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return answers.hasNext();
+                    }
+
+                    @Override
+                    public Substitution next() {
+                        read.set(index, read.get(index) + 1);
+                        return answers.next();
+                    }
+                };
+            }
+        };
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Literal<String> subject = termFactory.createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, subject));
+            atoms.add(new RDFAtom(subject, PREDICATE_2, subject));
+        }
+        store.ingest(atoms.stream());
+
+        // La variable centrale répétée dans un atome fait passer la requête par le chemin générique
+        RDFAtom loop1 = new RDFAtom(VAR_X, PREDICATE_1, VAR_X);
+        RDFAtom loop2 = new RDFAtom(VAR_X, PREDICATE_2, VAR_X);
+        List<Substitution> answers = new ArrayList<>();
+        store.match(new StarQuery("une boucle", List.of(loop1), List.of(VAR_X), 3)).forEachRemaining(answers::add);
+        assertEquals(3, answers.size());
+        assertEquals(List.of(3), read, "L'évaluation doit s'arrêter à la limite.");
+
+        read.clear();
+        answers.clear();
+        store.match(new StarQuery("deux boucles", List.of(loop1, loop2), List.of(VAR_X), 3)).forEachRemaining(answers::add);
+        assertEquals(3, answers.size());
+        assertEquals(100, read.getFirst(), "Le premier atome est lu en entier pour l'intersection.");
+        assertEquals(3, read.getLast(), "Le dernier atome s'arrête à la limite.");
+    }
+
+    @Test
+    public void testMatchCodes() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.ingest(Stream.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2), new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3)));
+        store.freeze();
+
+        List<StarQuery> queries = List.of(
+                new StarQuery("centrale", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1), new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)), List.of(VAR_X)),
+                new StarQuery("limitée", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X), 1),
+                new StarQuery("générique", List.of(new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_X, VAR_Y)));
+        for (StarQuery query : queries) {
+            Set<Substitution> expected = new HashSet<>();
+            store.match(query).forEachRemaining(expected::add);
+
+            IntResultSet result = store.matchCodes(query);
+            Set<Substitution> decoded = new HashSet<>();
+            result.toSubstitutions().forEachRemaining(decoded::add);
+            assertEquals(expected.size(), result.size(), "Nombre de lignes incorrect pour " + query.getLabel());
+            assertEquals(expected, decoded, "Les lignes décodées doivent être les réponses de " + query.getLabel());
+        }
+
+        // Le curseur lit les codes du dictionnaire sans rien décoder
+        IntResultSet central = store.matchCodes(queries.getFirst());
+        assertEquals(List.of(VAR_X), central.getVariables());
+        IntResultSet.Cursor cursor = central.cursor();
+        assertTrue(cursor.next());
+        assertEquals(store.dico_encodeTriplet(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1))[0], cursor.getCode(0));
+        assertEquals(SUBJECT_1, cursor.getTerm(0));
+        assertFalse(cursor.next());
+
+        IntResultSet generic = store.matchCodes(queries.get(2));
+        assertEquals(List.of(VAR_X, VAR_Y), generic.getVariables(), "Les colonnes doivent suivre l'ordre canonique des variables.");
+    }
+
+    @Test
+    public void testMatchProjected() {
+        Literal<String> subject3 = termFactory.createOrGetLiteral("subject3");
+        Variable varZ = termFactory.createOrGetVariable("?z");
+        RDFHexaStore store = new RDFHexaStore();
+        store.ingest(Stream.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2), new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_3),
+                new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2), new RDFAtom(subject3, PREDICATE_2, OBJECT_3),
+                new RDFAtom(SUBJECT_1, PREDICATE_3, OBJECT_2), new RDFAtom(SUBJECT_2, PREDICATE_3, OBJECT_1)));
+
+        RDFAtom xP1O1 = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+        RDFAtom xP2Y = new RDFAtom(VAR_X, PREDICATE_2, VAR_Y);
+        RDFAtom xP3Y = new RDFAtom(VAR_X, PREDICATE_3, VAR_Y);
+        for (boolean frozen : new boolean[]{false, true}) {
+            if (frozen) {store.freeze();}
+
+            // Atomes liant des variables différentes : le chemin générique les intersectait à tort
+            Set<Substitution> mixed = new HashSet<>();
+            store.match(new StarQuery("mixte", List.of(xP1O1, xP2Y), List.of(VAR_X, VAR_Y))).forEachRemaining(mixed::add);
+            assertEquals(Set.of(substitution(VAR_X, SUBJECT_1, VAR_Y, OBJECT_2), substitution(VAR_X, SUBJECT_1, VAR_Y, OBJECT_3),
+                    substitution(VAR_X, SUBJECT_2, VAR_Y, OBJECT_2)), mixed);
+
+            // ?y n'est pas projetée : (?x p2 ?y) n'est qu'un test d'existence
+            StarQuery projected = new StarQuery("projetée", List.of(xP2Y), List.of(VAR_X));
+            List<Substitution> subjects = new ArrayList<>();
+            store.match(projected).forEachRemaining(subjects::add);
+            assertEquals(3, subjects.size(), "Chaque sujet ne doit apparaître qu'une fois.");
+            assertEquals(Set.of(substitution(VAR_X, SUBJECT_1), substitution(VAR_X, SUBJECT_2), substitution(VAR_X, subject3)),
+                    new HashSet<>(subjects));
+            assertEquals(3, store.count(projected));
+
+            // ?y partagée entre deux atomes : jointure sur sa valeur
+            Set<Substitution> shared = new HashSet<>();
+            store.match(new StarQuery("partagée", List.of(xP2Y, xP3Y), List.of(VAR_X))).forEachRemaining(shared::add);
+            assertEquals(Set.of(substitution(VAR_X, SUBJECT_1)), shared);
+
+            // Deux variables non centrales dans un même atome, projection réduite à ?z
+            StarQuery twoVariables = new StarQuery("deux variables", List.of(xP1O1, new RDFAtom(VAR_X, VAR_Y, varZ)), List.of(varZ));
+            Set<Substitution> objects = new HashSet<>();
+            store.match(twoVariables).forEachRemaining(objects::add);
+            assertEquals(Set.of(substitution(varZ, OBJECT_1), substitution(varZ, OBJECT_2), substitution(varZ, OBJECT_3)), objects);
+            assertEquals(3, store.matchCodes(twoVariables).size());
+
+            StarQuery limited = new StarQuery("limitée", List.of(xP1O1, xP2Y), List.of(VAR_X, VAR_Y), 2);
+            assertEquals(2, store.count(limited));
+            assertEquals(List.of(VAR_Y), store.matchCodes(new StarQuery("colonnes", List.of(xP2Y), List.of(VAR_Y))).getVariables());
+        }
+    }
 
-        RDFAtom rdfAtom2 = new RDFAtom(PREDICATE_2, SUBJECT_2, OBJECT_2);
-        assertThrows(RuntimeException.class, () -> store.add(rdfAtom2));
+    private static Substitution substitution(Object... bindings) {
+        Substitution substitution = new SubstitutionImpl();
+        for (int i = 0; i < bindings.length; i += 2) {
+            substitution.add((Variable) bindings[i], (Term) bindings[i + 1]);
+        }
+        return substitution;
     }
-}
\ No newline at end of file
+}